@@ -0,0 +1,103 @@
+// Single-threaded A* over one priority queue and one closed set
+class AStarSolver extends Solver {
+    private SearchCheckpoint checkpoint;
+    // Expansions between two looks at whether a checkpoint is due
+    private int checkpointCheck = 1024;
+
+    public AStarSolver(Board board, Elevation elevation) {
+        super(board, elevation);
+    }
+
+    // Saves the search to the checkpoint as it goes, and resumes from it if it holds one for this level
+    public void setCheckpoint(SearchCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    // Looks more often, so a short search can be saved too (the self-check saves after a few expansions)
+    void setCheckpointCheck(int expansions) {
+        this.checkpointCheck = Math.max(expansions, 1);
+    }
+
+    @Override
+    public GameState solve(GameState initialState) {
+        // Ordered by f(n) = g(n) + h(n), cached on each state, then by the larger g(n)
+        BucketQueue openSet = new BucketQueue();
+
+        GameState start = withEstimate(initialState);
+        if (isDead(start)) {
+            // The target cannot be reached from the start at all
+            return null;
+        }
+        ClosedSet visited = newClosedSet(1);
+        if (checkpoint == null || !checkpoint.restore(this, start, openSet, visited)) {
+            openSet.add(start);
+        }
+        if (checkpoint != null) {
+            checkpoint.begin();
+        }
+
+        boolean finished = false;
+        try {
+            GameState goal = search(start, openSet, visited);
+            finished = !isCancelled();
+            return goal;
+        } finally {
+            metrics.closedSet(visited);
+            if (checkpoint != null) {
+                // A search that failed or was cancelled keeps its last checkpoint
+                checkpoint.end(finished);
+            }
+        }
+    }
+
+    private GameState search(GameState start, BucketQueue openSet, ClosedSet visited) {
+        int sinceCheck = 0;
+        while (!openSet.isEmpty()) {
+            if (isCancelled()) {
+                return null;
+            }
+            if (checkpoint != null && ++sinceCheck >= checkpointCheck) {
+                sinceCheck = 0;
+                if (checkpoint.isDue()) {
+                    checkpoint.save(board, elevation, start, openSet, visited, verifyHashCollisions);
+                }
+            }
+            metrics.openSize(openSet.size());
+            GameState currentState = openSet.poll();
+
+            if (isGoal(currentState)) {
+                return currentState;
+            }
+
+            if (!visited.add(currentState)) {
+                metrics.duplicate();
+                continue;
+            }
+            metrics.expanded();
+            metrics.visitedSize(visited.size());
+            if (trace.isEnabled(Trace.EXPANSIONS)) {
+                trace.printf(Trace.EXPANSIONS, "Expanding (%d,%d) g=%d%n",
+                        currentState.getPlayerX(), currentState.getPlayerY(), currentState.getTotalCost());
+            }
+
+            // Try all possible moves
+            for (int i = 0; i < DIR_X.length; i++) {
+                GameState nextState = simulateMove(currentState, i);
+                if (nextState == null)
+                    continue;
+                metrics.generated();
+                if (isDead(nextState)) {
+                    metrics.deadState();
+                    continue;
+                }
+                if (!visited.contains(nextState)) {
+                    openSet.add(nextState);
+                } else {
+                    metrics.duplicate();
+                }
+            }
+        }
+
+        return null;
+    }
+}
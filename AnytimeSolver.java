@@ -0,0 +1,187 @@
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Anytime A* for a time or node budget. It starts as weighted A*, ordering
+ * by g + w * h with w > 1, which dives to a first solution after far fewer
+ * expansions than plain A*. Every time it finds a solution it lowers w and
+ * carries on from the same open list and closed set (ARA*), now dropping
+ * states whose g + h cannot beat the best solution so far, until w reaches 1
+ * and the solution is optimal, or the budget runs out and the best solution
+ * so far is returned.
+ *
+ * A state's cost is fixed by its walls and position, so a state closed under
+ * a larger w never has to be reopened, and the open list always holds a
+ * state of an optimal path unless the incumbent is optimal. The smallest
+ * g + h on the open list is therefore a lower bound on the optimal cost, and
+ * every solution is reported with cost / lower bound as its proven bound.
+ */
+class AnytimeSolver extends Solver {
+    // Ratio of a solution's cost to the optimal cost is at most bound
+    public interface Listener {
+        void improved(GameState solution, double bound, long expanded, long elapsedNanos);
+    }
+
+    private double initialWeight = 3.0;
+    private long deadlineMillis = 0;
+    private long maxExpansions = 0;
+    private Listener listener;
+    private double weight;
+    private double bound = Double.POSITIVE_INFINITY;
+    private boolean exhausted;
+
+    public AnytimeSolver(Board board, Elevation elevation) {
+        super(board, elevation);
+    }
+
+    // Weight of the first pass; 1 makes it plain A*
+    public void setInitialWeight(double initialWeight) {
+        this.initialWeight = Math.max(initialWeight, 1.0);
+    }
+
+    // Time budget of one solve() in milliseconds, 0 for none
+    public void setDeadline(long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    // Expansion budget of one solve(), 0 for none
+    public void setMaxExpansions(long maxExpansions) {
+        this.maxExpansions = maxExpansions;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public double getBound() {
+        return bound;
+    }
+
+    @Override
+    public boolean isSolutionOptimal() {
+        return bound <= 1.0;
+    }
+
+    @Override
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    @Override
+    public GameState solve(GameState initialState) {
+        long start = System.nanoTime();
+        long deadline = deadlineMillis > 0 ? start + deadlineMillis * 1_000_000 : Long.MAX_VALUE;
+        weight = initialWeight;
+        bound = Double.POSITIVE_INFINITY;
+        exhausted = false;
+
+        PriorityQueue<GameState> openSet = newOpenSet(weight);
+        ClosedSet visited = newClosedSet(1);
+        openSet.add(withEstimate(initialState));
+
+        GameState best = null;
+        int bestCost = Integer.MAX_VALUE;
+        long expanded = 0;
+        try {
+            while (!openSet.isEmpty()) {
+                if (isCancelled() || System.nanoTime() > deadline
+                        || (maxExpansions > 0 && expanded >= maxExpansions)) {
+                    // Out of budget, the open list still bounds the optimal cost
+                    bound = best == null ? Double.POSITIVE_INFINITY : (double) bestCost / lowerBound(openSet, bestCost);
+                    exhausted = true;
+                    return best;
+                }
+                metrics.openSize(openSet.size());
+                GameState currentState = openSet.poll();
+                if (currentState.getEstimatedCost() >= bestCost) {
+                    continue;
+                }
+
+                if (isGoal(currentState)) {
+                    best = currentState;
+                    bestCost = currentState.getTotalCost();
+                    bound = (double) bestCost / lowerBound(openSet, bestCost);
+                    if (listener != null) {
+                        listener.improved(best, bound, expanded, System.nanoTime() - start);
+                    }
+                    if (weight <= 1.0) {
+                        // Popped in plain f order, nothing left on the open list can be cheaper
+                        bound = 1.0;
+                        return best;
+                    }
+                    weight = nextWeight(weight);
+                    openSet = reorder(openSet, weight, bestCost);
+                    continue;
+                }
+
+                if (!visited.add(currentState)) {
+                    metrics.duplicate();
+                    continue;
+                }
+                expanded++;
+                metrics.expanded();
+                metrics.visitedSize(visited.size());
+                if (trace.isEnabled(Trace.EXPANSIONS)) {
+                    trace.printf(Trace.EXPANSIONS, "Expanding (%d,%d) g=%d w=%.2f%n",
+                            currentState.getPlayerX(), currentState.getPlayerY(), currentState.getTotalCost(), weight);
+                }
+
+                for (int i = 0; i < DIR_X.length; i++) {
+                    GameState nextState = simulateMove(currentState, i);
+                    if (nextState == null)
+                        continue;
+                    metrics.generated();
+                    if (isDead(nextState)) {
+                        metrics.deadState();
+                        continue;
+                    }
+                    if (nextState.getEstimatedCost() >= bestCost) {
+                        continue;
+                    }
+                    if (!visited.contains(nextState)) {
+                        openSet.add(nextState);
+                    } else {
+                        metrics.duplicate();
+                    }
+                }
+            }
+            // Everything that could beat the incumbent has been searched
+            bound = best == null ? Double.POSITIVE_INFINITY : 1.0;
+            return best;
+        } finally {
+            metrics.closedSet(visited);
+        }
+    }
+
+    // Halves the distance to 1, and ends at exactly 1 once close enough
+    private static double nextWeight(double weight) {
+        double next = 1.0 + (weight - 1.0) / 2;
+        return next < 1.05 ? 1.0 : next;
+    }
+
+    private PriorityQueue<GameState> newOpenSet(double w) {
+        // Ties go to the deeper state, which is closer to a solution
+        return new PriorityQueue<>(Comparator
+                .comparingDouble((GameState s) -> s.getTotalCost() + w * (s.getEstimatedCost() - s.getTotalCost()))
+                .thenComparing(Comparator.comparingInt(GameState::getTotalCost).reversed()));
+    }
+
+    private PriorityQueue<GameState> reorder(PriorityQueue<GameState> openSet, double w, int bestCost) {
+        PriorityQueue<GameState> reordered = newOpenSet(w);
+        for (GameState state : openSet) {
+            if (state.getEstimatedCost() < bestCost) {
+                reordered.add(state);
+            }
+        }
+        return reordered;
+    }
+
+    private int lowerBound(PriorityQueue<GameState> openSet, int bestCost) {
+        int lowest = bestCost;
+        for (GameState state : openSet) {
+            lowest = Math.min(lowest, state.getEstimatedCost());
+        }
+        return Math.max(lowest, 1);
+    }
+}
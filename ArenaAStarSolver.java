@@ -0,0 +1,325 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * A* that keeps its nodes in a NodeArena instead of GameState objects, for
+ * searches whose node count would otherwise keep the garbage collector
+ * busy. The open list and the closed set only hold int handles: the open
+ * list is a bucket queue by f and h like BucketQueue, with its buckets
+ * linked through the records' next field, and the closed set is a table of
+ * hashes and handles in direct buffers too (12 bytes a slot, at most half
+ * full). Expanding a node copies its walls into one reused array, and the
+ * dead-state flood fill works in reused arrays too, so the search allocates
+ * nothing per node; GameStates are only built for the solution path at the
+ * end. What stays on the heap is the open list's bucket heads, one int per
+ * f and h value in play, which grow with the range of costs and not with
+ * the number of nodes.
+ */
+class ArenaAStarSolver extends Solver {
+    private NodeArena arena;
+    private long arenaBytes;
+
+    public ArenaAStarSolver(Board board, Elevation elevation) {
+        super(board, elevation);
+    }
+
+    // Off-heap memory used by the last solve()
+    public long getArenaBytes() {
+        return arenaBytes;
+    }
+
+    @Override
+    public GameState solve(GameState initialState) {
+        GameState start = withEstimate(initialState);
+        if (isDead(start)) {
+            // The target cannot be reached from the start at all
+            return null;
+        }
+        arena = new NodeArena(board.getWords());
+        OpenList openSet = new OpenList();
+        Closed visited = new Closed();
+        openSet.add(arena.add(start.getHash(), -1, start.getTotalCost(), start.getEstimatedCost(),
+                start.getPosition(), -1, start.getWalls()));
+        try {
+            int goal = search(openSet, visited);
+            return goal < 0 ? null : rebuild(initialState, goal);
+        } finally {
+            arenaBytes = arena.bytes() + visited.bytes();
+            // Dropping the arena releases its buffers with it
+            arena = null;
+        }
+    }
+
+    private int search(OpenList openSet, Closed visited) {
+        long[] walls = new long[board.getWords()];
+        long[] nextWalls = new long[board.getWords()];
+        long[] free = new long[board.getWords()];
+        long[] reach = new long[board.getWords()];
+        while (!openSet.isEmpty()) {
+            if (isCancelled()) {
+                return -1;
+            }
+            metrics.openSize(openSet.size());
+            int node = openSet.poll();
+            int position = arena.position(node);
+            if (position == board.index(targetX, targetY)) {
+                return node;
+            }
+            arena.readWalls(node, walls);
+            if (!visited.add(node, arena.hash(node), position, walls)) {
+                metrics.duplicate();
+                continue;
+            }
+            metrics.expanded();
+            metrics.visitedSize(visited.size());
+
+            int cost = arena.cost(node);
+            long hash = arena.hash(node);
+            for (int direction = 0; direction < DIR_X.length; direction++) {
+                int end = board.slideEnd(walls, position, direction);
+                if (end == position)
+                    continue;
+                metrics.generated();
+                int estimate = costToTarget.get(end);
+                System.arraycopy(walls, 0, nextWalls, 0, walls.length);
+                long nextHash = hash ^ board.playerKey(position) ^ board.playerKey(end)
+                        ^ board.wallSegment(nextWalls, position, end);
+                boolean goal = end == board.index(targetX, targetY);
+                if (estimate >= HeuristicTable.UNREACHABLE
+                        || (pruneDeadStates && !goal && !board.canReachTarget(nextWalls, end, free, reach))) {
+                    metrics.deadState();
+                    continue;
+                }
+                if (visited.contains(nextHash, end, nextWalls)) {
+                    metrics.duplicate();
+                    continue;
+                }
+                int nextCost = cost + slideCost(position, direction, end);
+                openSet.add(arena.add(nextHash, node, nextCost, nextCost + estimate, end, direction, nextWalls));
+            }
+        }
+        return -1;
+    }
+
+    // Replays the moves of the path to goal as GameStates, the same as the other solvers return
+    private GameState rebuild(GameState initialState, int goal) {
+        int length = 0;
+        for (int node = goal; arena.parent(node) >= 0; node = arena.parent(node)) {
+            length++;
+        }
+        int[] directions = new int[length];
+        for (int node = goal, i = length - 1; i >= 0; node = arena.parent(node), i--) {
+            directions[i] = arena.direction(node);
+        }
+        GameState state = initialState;
+        for (int direction : directions) {
+            state = simulateMove(state, direction);
+        }
+        return state;
+    }
+
+    /*
+     * Bucket queue of handles, see BucketQueue. Every bucket (one f, one h)
+     * is a stack linked through the records, heads[f level][h] holding the
+     * top node + 1 (0 for an empty stack).
+     */
+    private final class OpenList {
+        private int[][] heads = new int[64][];
+        private int[] minH = new int[64];
+        private int[] counts = new int[64];
+        private int baseF;
+        private int first;
+        private int size;
+
+        void add(int node) {
+            int f = arena.estimate(node);
+            int h = f - arena.cost(node);
+            if (size == 0) {
+                baseF = f;
+                first = 0;
+            } else if (f < baseF) {
+                shiftBack(baseF - f);
+            }
+            int level = f - baseF;
+            if (level >= heads.length) {
+                int length = Math.max(heads.length * 2, level + 1);
+                heads = Arrays.copyOf(heads, length);
+                minH = Arrays.copyOf(minH, length);
+                counts = Arrays.copyOf(counts, length);
+            }
+            int[] stacks = heads[level];
+            if (stacks == null || h >= stacks.length) {
+                stacks = heads[level] = Arrays.copyOf(stacks == null ? new int[0] : stacks,
+                        Math.max(h + 1, stacks == null ? 8 : stacks.length * 2));
+            }
+            arena.setNext(node, stacks[h] - 1);
+            stacks[h] = node + 1;
+            if (counts[level]++ == 0 || h < minH[level]) {
+                minH[level] = h;
+            }
+            if (level < first) {
+                first = level;
+            }
+            size++;
+        }
+
+        int poll() {
+            while (counts[first] == 0) {
+                first++;
+            }
+            int[] stacks = heads[first];
+            int h = minH[first];
+            while (stacks[h] == 0) {
+                h++;
+            }
+            minH[first] = h;
+            int node = stacks[h] - 1;
+            stacks[h] = arena.next(node) + 1;
+            counts[first]--;
+            size--;
+            if (first >= heads.length / 2 && first >= 64) {
+                rotate(first);
+            }
+            return node;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        // Moves the empty levels in front of the cursor to the end, to be reused for higher f
+        private void rotate(int by) {
+            heads = rotated(heads, by);
+            int[] oldMinH = minH;
+            int[] oldCounts = counts;
+            minH = new int[oldMinH.length];
+            counts = new int[oldCounts.length];
+            System.arraycopy(oldMinH, by, minH, 0, oldMinH.length - by);
+            System.arraycopy(oldCounts, by, counts, 0, oldCounts.length - by);
+            baseF += by;
+            first = 0;
+        }
+
+        private int[][] rotated(int[][] levels, int by) {
+            int[][] result = new int[levels.length][];
+            System.arraycopy(levels, by, result, 0, levels.length - by);
+            System.arraycopy(levels, 0, result, levels.length - by, by);
+            return result;
+        }
+
+        private void shiftBack(int by) {
+            int length = heads.length + by;
+            int[][] shiftedHeads = new int[length][];
+            int[] shiftedMinH = new int[length];
+            int[] shiftedCounts = new int[length];
+            System.arraycopy(heads, 0, shiftedHeads, by, heads.length);
+            System.arraycopy(minH, 0, shiftedMinH, by, minH.length);
+            System.arraycopy(counts, 0, shiftedCounts, by, counts.length);
+            heads = shiftedHeads;
+            minH = shiftedMinH;
+            counts = shiftedCounts;
+            baseF -= by;
+            first += by;
+        }
+    }
+
+    // Closed set of handles keyed by hash, in direct buffers like the records; with verification on, a match
+    // also compares the records
+    private final class Closed {
+        // 0 marks an empty slot, so a real key of 0 is stored as this instead
+        private static final long ZERO_KEY = 0x8000000000000001L;
+
+        private LongBuffer keys = newKeys(1 << 12);
+        private IntBuffer nodes = newNodes(1 << 12);
+        private int mask = keys.capacity() - 1;
+        private int size;
+
+        boolean contains(long hash, int position, long[] walls) {
+            return find(key(hash), position, walls) >= 0;
+        }
+
+        boolean add(int node, long hash, int position, long[] walls) {
+            long key = key(hash);
+            int slot = find(key, position, walls);
+            if (slot >= 0) {
+                return false;
+            }
+            slot = -slot - 1;
+            keys.put(slot, key);
+            nodes.put(slot, node);
+            if (++size * 2 > keys.capacity()) {
+                grow();
+            }
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long bytes() {
+            return 12L * keys.capacity();
+        }
+
+        private int find(long key, int position, long[] walls) {
+            int slot = slotOf(key);
+            while (true) {
+                long k = keys.get(slot);
+                if (k == 0) {
+                    return -slot - 1;
+                }
+                if (k == key && (!verifyHashCollisions || arena.sameState(nodes.get(slot), position, walls))) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void grow() {
+            LongBuffer oldKeys = keys;
+            IntBuffer oldNodes = nodes;
+            if (oldKeys.capacity() > Integer.MAX_VALUE / 16) {
+                throw new OutOfMemoryError("Arena closed set is full at " + size + " states");
+            }
+            keys = newKeys(oldKeys.capacity() << 1);
+            nodes = newNodes(keys.capacity());
+            mask = keys.capacity() - 1;
+            for (int i = 0; i < oldKeys.capacity(); i++) {
+                long key = oldKeys.get(i);
+                if (key == 0) {
+                    continue;
+                }
+                int slot = slotOf(key);
+                while (keys.get(slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys.put(slot, key);
+                nodes.put(slot, oldNodes.get(i));
+            }
+        }
+
+        // A fresh direct buffer reads as zeros, so every slot starts empty
+        private LongBuffer newKeys(int slots) {
+            return ByteBuffer.allocateDirect(8 * slots).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+
+        private IntBuffer newNodes(int slots) {
+            return ByteBuffer.allocateDirect(4 * slots).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+
+        private int slotOf(long key) {
+            return (int) (key ^ (key >>> 32)) & mask;
+        }
+
+        private long key(long hash) {
+            return hash == 0 ? ZERO_KEY : hash;
+        }
+    }
+}
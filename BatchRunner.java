@@ -0,0 +1,177 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Solves and renders several levels at once. Levels are independent (each one
+ * only writes to its own levelNN folder), so they are simply submitted to a
+ * fixed-size pool. Every level prints into its own buffer, and the buffers are
+ * written to the console in level order, so the output reads the same as a
+ * sequential run. Levels are taken from the iterator only a few at a time
+ * ahead of the one being printed, so a large pack is never loaded as a whole.
+ */
+class BatchRunner {
+    private final int parallelism;
+    private final FrameWriter frameWriter;
+    private final Consumer<PathBlocker> configure;
+    private final boolean seeded;
+    private final long seed;
+
+    // configure is applied to every level's PathBlocker before it plays
+    public BatchRunner(int parallelism, FrameWriter frameWriter, Consumer<PathBlocker> configure) {
+        this(parallelism, frameWriter, configure, false, 0);
+    }
+
+    // Level n gets its elevation from PathBlocker.levelSeed(seed, n), like a sequential run
+    public BatchRunner(int parallelism, FrameWriter frameWriter, Consumer<PathBlocker> configure, long seed) {
+        this(parallelism, frameWriter, configure, true, seed);
+    }
+
+    private BatchRunner(int parallelism, FrameWriter frameWriter, Consumer<PathBlocker> configure,
+            boolean seeded, long seed) {
+        this.parallelism = Math.max(parallelism, 1);
+        this.frameWriter = frameWriter;
+        this.configure = configure;
+        this.seeded = seeded;
+        this.seed = seed;
+    }
+
+    // Returns the number of levels that failed with an exception
+    public int run(Iterator<ChartMap> maps) {
+        return run(maps, 1);
+    }
+
+    // firstLevel is the number of the first map, for its levelNN folder and seed
+    public int run(Iterator<ChartMap> maps, int firstLevel) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        long start = System.nanoTime();
+
+        // Enough levels in flight to keep every thread busy while the oldest one is printed
+        int window = parallelism * 2;
+        ArrayDeque<Future<LevelResult>> futures = new ArrayDeque<>();
+        ArrayDeque<Integer> futureLevels = new ArrayDeque<>();
+        ArrayList<LevelResult> results = new ArrayList<>();
+        int levels = firstLevel - 1;
+        try {
+            while (maps.hasNext() || !futures.isEmpty()) {
+                while (futures.size() < window && maps.hasNext()) {
+                    final int level = ++levels;
+                    final ChartMap map = maps.next();
+                    futures.add(executor.submit(() -> solveLevel(level, map, threadBean)));
+                    futureLevels.add(level);
+                }
+                int level = futureLevels.poll();
+                LevelResult result;
+                try {
+                    result = futures.poll().get();
+                    System.out.print(result.output);
+                    result.output = null;
+                } catch (ExecutionException e) {
+                    // One broken level must not hide the ones solved after it
+                    Throwable cause = e.getCause();
+                    System.out.println("\nLevel " + level + " failed: " + cause);
+                    cause.printStackTrace();
+                    result = new LevelResult(level, cause.toString());
+                }
+                results.add(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long wallNanos = System.nanoTime() - start;
+        printSummary(results, wallNanos);
+        int failed = 0;
+        for (LevelResult r : results) {
+            if (r.failure != null) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    private LevelResult solveLevel(int level, ChartMap map, ThreadMXBean threadBean) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        long cpuStart = threadCpuTime(threadBean);
+        long start = System.nanoTime();
+
+        out.println("\nStarting Level " + level);
+        String levelFolder = String.format("level%02d", level);
+        PathBlocker game = seeded
+                ? new PathBlocker(map, levelFolder, out, frameWriter, PathBlocker.levelSeed(seed, level))
+                : new PathBlocker(map, levelFolder, out, frameWriter);
+        configure.accept(game);
+        game.play();
+        out.flush();
+
+        long wallNanos = System.nanoTime() - start;
+        long cpuNanos = threadCpuTime(threadBean) - cpuStart;
+        return new LevelResult(level, game.getSolutionCost(), wallNanos, cpuNanos,
+                buffer.toString(StandardCharsets.UTF_8));
+    }
+
+    private long threadCpuTime(ThreadMXBean threadBean) {
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    private void printSummary(ArrayList<LevelResult> results, long wallNanos) {
+        long totalCpu = 0;
+        long totalLevelWall = 0;
+        System.out.println("\nBatch summary (" + parallelism + " levels at a time):");
+        for (LevelResult r : results) {
+            if (r.failure != null) {
+                System.out.printf("  Level %2d  failed: %s%n", r.level, r.failure);
+                continue;
+            }
+            System.out.printf("  Level %2d  cost %5s  wall %8.1f ms  cpu %8.1f ms%n",
+                    r.level, r.cost < 0 ? "-" : Integer.toString(r.cost), r.wallNanos / 1e6, r.cpuNanos / 1e6);
+            totalCpu += r.cpuNanos;
+            totalLevelWall += r.wallNanos;
+        }
+        System.out.printf("  Wall-clock: %.1f ms, sum of level times: %.1f ms, total CPU: %.1f ms%n",
+                wallNanos / 1e6, totalLevelWall / 1e6, totalCpu / 1e6);
+        System.out.printf("  CPU / wall-clock: %.2f%n", wallNanos > 0 ? (double) totalCpu / wallNanos : 0.0);
+        System.out.println("  (CPU is counted on the level threads only, not on parallel search workers)");
+    }
+
+    private static class LevelResult {
+        final int level;
+        final int cost;
+        final long wallNanos;
+        final long cpuNanos;
+        final String failure;
+        String output;
+
+        LevelResult(int level, int cost, long wallNanos, long cpuNanos, String output) {
+            this.level = level;
+            this.cost = cost;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.output = output;
+            this.failure = null;
+        }
+
+        // A level whose solve threw
+        LevelResult(int level, String failure) {
+            this.level = level;
+            this.cost = -1;
+            this.wallNanos = 0;
+            this.cpuNanos = 0;
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * Fixed layout of a level as a bitboard: cell (x, y) is bit y * width + x of
+ * a long[] wall mask. Search states only carry their own copy of the mask and
+ * a packed player position, everything else lives here and is shared.
+ *
+ * Each board also owns a table of Zobrist keys (one per cell for walls and
+ * one per cell for the player) so states can keep a 64-bit hash that is
+ * updated with a couple of XORs per changed cell.
+ */
+class Board {
+    private final int width;
+    private final int height;
+    private final int words;
+    private final long[] initialWalls;
+    private final int targetX;
+    private final int targetY;
+    private final long[] wallKeys;
+    private final long[] playerKeys;
+    // Prefix XORs of the wall keys along each row and column, so the hash change
+    // of walling a whole straight segment is two lookups
+    private final long[] rowKeyPrefix;
+    private final long[] colKeyPrefix;
+    // Cells on the board, and cells not in the first / last column, for the flood fill
+    private final long[] boardMask;
+    private final long[] notFirstColumn;
+    private final long[] notLastColumn;
+
+    // Fixed seed so hashes are reproducible between runs
+    private static final long ZOBRIST_SEED = 0x9E3779B97F4A7C15L;
+
+    public Board(ArrayList<ArrayList<Integer>> values) {
+        this.height = values.size();
+        this.width = values.get(0).size();
+        this.words = (width * height + 63) >>> 6;
+        this.initialWalls = new long[words];
+
+        int tx = -1, ty = -1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = values.get(y).get(x);
+                if (value == 1) {
+                    setWall(initialWalls, x, y);
+                } else if (value == 2) {
+                    tx = x;
+                    ty = y;
+                }
+            }
+        }
+        this.targetX = tx;
+        this.targetY = ty;
+
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED);
+        int cells = width * height;
+        this.wallKeys = new long[cells];
+        this.playerKeys = new long[cells];
+        for (int i = 0; i < cells; i++) {
+            wallKeys[i] = random.nextLong();
+            playerKeys[i] = random.nextLong();
+        }
+
+        this.rowKeyPrefix = new long[height * (width + 1)];
+        this.colKeyPrefix = new long[width * (height + 1)];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                long key = wallKeys[index(x, y)];
+                rowKeyPrefix[y * (width + 1) + x + 1] = rowKeyPrefix[y * (width + 1) + x] ^ key;
+                colKeyPrefix[x * (height + 1) + y + 1] = colKeyPrefix[x * (height + 1) + y] ^ key;
+            }
+        }
+
+        this.boardMask = new long[words];
+        this.notFirstColumn = new long[words];
+        this.notLastColumn = new long[words];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = index(x, y);
+                boardMask[i >>> 6] |= 1L << i;
+                if (x > 0) {
+                    notFirstColumn[i >>> 6] |= 1L << i;
+                }
+                if (x < width - 1) {
+                    notLastColumn[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public int getTargetX() {
+        return targetX;
+    }
+
+    public int getTargetY() {
+        return targetY;
+    }
+
+    public boolean isTarget(int x, int y) {
+        return x == targetX && y == targetY;
+    }
+
+    public long[] copyInitialWalls() {
+        return initialWalls.clone();
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public int xOf(int index) {
+        return index % width;
+    }
+
+    public int yOf(int index) {
+        return index / width;
+    }
+
+    public long wallKey(int index) {
+        return wallKeys[index];
+    }
+
+    public long playerKey(int index) {
+        return playerKeys[index];
+    }
+
+    // Full hash, only needed for the initial state; successors are updated incrementally
+    public long hash(long[] walls, int position) {
+        long h = playerKeys[position];
+        for (int w = 0; w < walls.length; w++) {
+            long word = walls[w];
+            while (word != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                h ^= wallKeys[i];
+                word &= word - 1;
+            }
+        }
+        return h;
+    }
+
+    /*
+     * Where a slide from position in direction (State.DIRECTIONS order) stops:
+     * the cell before the first wall or the edge, or the target if it comes
+     * first. Returns position itself if the first cell is already blocked.
+     * Horizontal slides scan whole words of the mask at a time.
+     */
+    public int slideEnd(long[] walls, int position, int direction) {
+        int x = xOf(position);
+        int y = yOf(position);
+        int rowStart = y * width;
+        switch (direction) {
+            case 1: { // A
+                int wall = lastSetBit(walls, position - 1, rowStart);
+                int end = wall < 0 ? rowStart : wall + 1;
+                if (y == targetY && targetX < x && index(targetX, targetY) >= end) {
+                    end = index(targetX, targetY);
+                }
+                return end;
+            }
+            case 3: { // D
+                int wall = firstSetBit(walls, position + 1, rowStart + width - 1);
+                int end = wall < 0 ? rowStart + width - 1 : wall - 1;
+                if (y == targetY && targetX > x && index(targetX, targetY) <= end) {
+                    end = index(targetX, targetY);
+                }
+                return end;
+            }
+            default: { // W, S
+                int step = direction == 0 ? -1 : 1;
+                int ny = y + step;
+                while (ny >= 0 && ny < height && !isWall(walls, x, ny)) {
+                    if (x == targetX && ny == targetY) {
+                        return index(x, ny);
+                    }
+                    ny += step;
+                }
+                return index(x, ny - step);
+            }
+        }
+    }
+
+    /*
+     * Turns every cell of a straight segment from start up to, but not
+     * including, end into a wall. Returns the XOR of their Zobrist keys.
+     */
+    public long wallSegment(long[] walls, int start, int end) {
+        int x1 = xOf(start), y1 = yOf(start);
+        int x2 = xOf(end), y2 = yOf(end);
+        if (y1 == y2) {
+            int last = x2 > x1 ? x2 - 1 : x2 + 1;
+            int from = Math.min(x1, last);
+            int to = Math.max(x1, last);
+            setRange(walls, index(from, y1), index(to, y1));
+            return rowKeyPrefix[y1 * (width + 1) + to + 1] ^ rowKeyPrefix[y1 * (width + 1) + from];
+        }
+        int step = y2 > y1 ? 1 : -1;
+        int from = Math.min(y1, y2 - step);
+        int to = Math.max(y1, y2 - step);
+        for (int y = from; y <= to; y++) {
+            setWall(walls, x1, y);
+        }
+        return colKeyPrefix[x1 * (height + 1) + to + 1] ^ colKeyPrefix[x1 * (height + 1) + from];
+    }
+
+    /*
+     * Whether the target can still be reached from position, ignoring the
+     * sliding rule: every route to the target runs through 4-connected open
+     * cells, so if there is none the state is dead. The target also needs an
+     * open neighbour to be entered from, which is checked first because it is
+     * much cheaper. The flood fill grows the reachable set a word at a time.
+     */
+    public boolean canReachTarget(long[] walls, int position) {
+        return canReachTarget(walls, position, new long[words], new long[words]);
+    }
+
+    // Same, with the flood fill done in the caller's free and reach arrays (getWords() long each)
+    public boolean canReachTarget(long[] walls, int position, long[] free, long[] reach) {
+        if (!hasOpenNeighbour(walls, targetX, targetY)) {
+            return false;
+        }
+        int target = index(targetX, targetY);
+        int targetWord = target >>> 6;
+        long targetBit = 1L << target;
+
+        for (int w = 0; w < words; w++) {
+            free[w] = ~walls[w] & boardMask[w];
+            reach[w] = 0;
+        }
+        reach[position >>> 6] = 1L << position;
+
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            // Updated in place, so growth in lower words is already visible to higher ones
+            for (int w = 0; w < words; w++) {
+                long r = reach[w];
+                long next = r
+                        | (shiftedWord(reach, w, 1) & notFirstColumn[w])
+                        | (shiftedWord(reach, w, -1) & notLastColumn[w])
+                        | shiftedWord(reach, w, width)
+                        | shiftedWord(reach, w, -width);
+                next &= free[w];
+                next |= r;
+                if (next != r) {
+                    reach[w] = next;
+                    grew = true;
+                }
+            }
+            if ((reach[targetWord] & targetBit) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasOpenNeighbour(long[] walls, int x, int y) {
+        return (inBounds(x, y - 1) && !isWall(walls, x, y - 1))
+                || (inBounds(x - 1, y) && !isWall(walls, x - 1, y))
+                || (inBounds(x, y + 1) && !isWall(walls, x, y + 1))
+                || (inBounds(x + 1, y) && !isWall(walls, x + 1, y));
+    }
+
+    // Word w of the bit set shifted by s bits, towards higher indices for s > 0
+    private static long shiftedWord(long[] bits, int w, int s) {
+        if (s >= 0) {
+            int src = w - (s >>> 6);
+            int r = s & 63;
+            if (src < 0) {
+                return 0;
+            }
+            long value = bits[src] << r;
+            if (r != 0 && src > 0) {
+                value |= bits[src - 1] >>> (64 - r);
+            }
+            return value;
+        }
+        s = -s;
+        int src = w + (s >>> 6);
+        int r = s & 63;
+        if (src >= bits.length) {
+            return 0;
+        }
+        long value = bits[src] >>> r;
+        if (r != 0 && src + 1 < bits.length) {
+            value |= bits[src + 1] << (64 - r);
+        }
+        return value;
+    }
+
+    // Index of the lowest set bit in [from, to], or -1
+    private static int firstSetBit(long[] bits, int from, int to) {
+        if (from > to) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                return i <= to ? i : -1;
+            }
+            if (++w > (to >>> 6)) {
+                return -1;
+            }
+            word = bits[w];
+        }
+    }
+
+    // Index of the highest set bit in [to, from], or -1
+    private static int lastSetBit(long[] bits, int from, int to) {
+        if (from < to) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = bits[w] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) {
+                int i = (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+                return i >= to ? i : -1;
+            }
+            if (--w < (to >>> 6)) {
+                return -1;
+            }
+            word = bits[w];
+        }
+    }
+
+    // Sets bits from through to, both included
+    private static void setRange(long[] bits, int from, int to) {
+        int first = from >>> 6;
+        int last = to >>> 6;
+        for (int w = first; w <= last; w++) {
+            long mask = -1L;
+            if (w == first) {
+                mask &= -1L << from;
+            }
+            if (w == last) {
+                mask &= -1L >>> (63 - (to & 63));
+            }
+            bits[w] |= mask;
+        }
+    }
+
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public boolean isWall(long[] walls, int x, int y) {
+        int i = index(x, y);
+        return (walls[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public void setWall(long[] walls, int x, int y) {
+        int i = index(x, y);
+        walls[i >>> 6] |= 1L << i;
+    }
+}
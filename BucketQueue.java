@@ -0,0 +1,166 @@
+import java.util.Arrays;
+
+/**
+ * Open list for integer f-values: one bucket per f, and inside a bucket one
+ * stack per h = f - g, so the state with the lowest f and, among those, the
+ * highest g (the one closest to the target) comes out first.
+ *
+ * With a consistent heuristic A* never adds a state below the f it is
+ * popping, so the cursor over the f buckets only moves forward, and add and
+ * poll are amortized O(1). Inside the current bucket the h cursor moves
+ * back when a deeper state arrives, which is the usual case and costs one
+ * step. Adding below the cursor (states handed over by other threads in
+ * parallel A*) is still correct, it only moves the cursor back.
+ *
+ * Buckets that fall behind the cursor are rotated to the end and reused,
+ * so memory follows the range of f on the open list, not its maximum.
+ */
+class BucketQueue {
+    private Level[] levels = new Level[64];
+    private int baseF;
+    private int first;
+    private int size;
+
+    // The states of one f, by h
+    private static final class Level {
+        GameState[][] stacks = new GameState[8][];
+        int[] sizes = new int[8];
+        int minH = Integer.MAX_VALUE;
+        int count;
+
+        void push(int h, GameState state) {
+            if (h >= stacks.length) {
+                int length = Math.max(stacks.length * 2, h + 1);
+                stacks = Arrays.copyOf(stacks, length);
+                sizes = Arrays.copyOf(sizes, length);
+            }
+            GameState[] stack = stacks[h];
+            if (stack == null) {
+                stack = stacks[h] = new GameState[4];
+            } else if (sizes[h] == stack.length) {
+                stack = stacks[h] = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[sizes[h]++] = state;
+            count++;
+            if (h < minH) {
+                minH = h;
+            }
+        }
+
+        GameState peek() {
+            while (sizes[minH] == 0) {
+                minH++;
+            }
+            return stacks[minH][sizes[minH] - 1];
+        }
+
+        GameState pop() {
+            GameState state = peek();
+            stacks[minH][--sizes[minH]] = null;
+            if (--count == 0) {
+                minH = Integer.MAX_VALUE;
+            }
+            return state;
+        }
+    }
+
+    public void add(GameState state) {
+        int f = state.getEstimatedCost();
+        int h = f - state.getTotalCost();
+        if (size == 0) {
+            // Every level is empty, so they can stand for any range of f
+            baseF = f;
+            first = 0;
+        } else if (f < baseF) {
+            shiftBack(baseF - f);
+        }
+        int index = f - baseF;
+        if (index >= levels.length) {
+            levels = Arrays.copyOf(levels, Math.max(levels.length * 2, index + 1));
+        }
+        Level level = levels[index];
+        if (level == null) {
+            level = levels[index] = new Level();
+        }
+        level.push(h, state);
+        if (index < first) {
+            first = index;
+        }
+        size++;
+    }
+
+    public GameState peek() {
+        if (size == 0) {
+            return null;
+        }
+        return levels[advance()].peek();
+    }
+
+    public GameState poll() {
+        if (size == 0) {
+            return null;
+        }
+        GameState state = levels[advance()].pop();
+        size--;
+        if (first >= levels.length / 2 && first >= 64) {
+            // Rotate the empty levels behind the cursor to the end, to be used for higher f
+            Level[] rotated = new Level[levels.length];
+            System.arraycopy(levels, first, rotated, 0, levels.length - first);
+            System.arraycopy(levels, 0, rotated, levels.length - first, first);
+            levels = rotated;
+            baseF += first;
+            first = 0;
+        }
+        return state;
+    }
+
+    // Every state, in an order that rebuilds the same queue when added back one by one
+    public GameState[] toArray() {
+        GameState[] states = new GameState[size];
+        int n = 0;
+        for (int index = first; n < size; index++) {
+            Level level = levels[index];
+            if (level == null) {
+                continue;
+            }
+            for (int h = 0; h < level.stacks.length; h++) {
+                for (int i = 0; i < level.sizes[h]; i++) {
+                    states[n++] = level.stacks[h][i];
+                }
+            }
+        }
+        return states;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int advance() {
+        while (levels[first] == null || levels[first].count == 0) {
+            first++;
+        }
+        return first;
+    }
+
+    // Makes room for `by` lower f values in front of the current ones
+    private void shiftBack(int by) {
+        Level[] shifted = new Level[Math.max(levels.length, lastUsed() + 1 + by)];
+        System.arraycopy(levels, 0, shifted, by, Math.min(levels.length, shifted.length - by));
+        levels = shifted;
+        baseF -= by;
+        first += by;
+    }
+
+    private int lastUsed() {
+        int last = levels.length - 1;
+        while (last > 0 && (levels[last] == null || levels[last].count == 0)) {
+            last--;
+        }
+        return last;
+    }
+}
@@ -1,96 +1,62 @@
-import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.image.BufferedImage;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import javax.imageio.ImageIO;
 
 public class ChartMap {
     private ArrayList<ArrayList<Integer>> values;
     private Elevation elevation;
+    private boolean hasElevationSeed;
+    private long elevationSeed;
+    private int pyramidCount;
 
     public ChartMap(ArrayList<ArrayList<Integer>> values) {
         this.values = values;
     }
 
+    public ChartMap(LevelGrid grid) {
+        this(grid.toValues());
+    }
+
     public ArrayList<ArrayList<Integer>> getValues() {
         return values;
     }
 
+    // Deep copy of the grid, sharing the (read-only) elevation
+    public ChartMap copy() {
+        ArrayList<ArrayList<Integer>> copy = new ArrayList<>();
+        for (ArrayList<Integer> row : values) {
+            copy.add(new ArrayList<>(row));
+        }
+        ChartMap map = new ChartMap(copy);
+        map.setElevation(elevation);
+        return map;
+    }
+
+    // Reads every level of the files up front; see LevelReader for reading them one at a time
     public static ArrayList<ChartMap> readMaps(String[] filePaths) {
         ArrayList<ChartMap> maps = new ArrayList<>();
-
+        // One reader per file, so an unreadable file is skipped and the rest still load
         for (String filePath : filePaths) {
-            ArrayList<ArrayList<Integer>> values = new ArrayList<>();
-            try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] tokens = line.trim().split("\\s+");
-                    ArrayList<Integer> rowValues = new ArrayList<>();
-                    for (String token : tokens) {
-                        rowValues.add(Integer.parseInt(token));
-                    }
-                    values.add(rowValues);
+            ArrayList<ChartMap> fileMaps = new ArrayList<>();
+            try (LevelReader reader = new LevelReader(filePath)) {
+                while (reader.hasNext()) {
+                    fileMaps.add(new ChartMap(reader.next()));
                 }
-            } catch (IOException e) {
+                maps.addAll(fileMaps);
+            } catch (UncheckedIOException e) {
                 e.printStackTrace();
             }
-            maps.add(new ChartMap(values));
         }
-
         return maps;
     }
 
     // Method to save the map as a PNG image
     public void saveAsPng(String fileName) {
-        int width = values.get(0).size();
-        int height = values.size();
-        int blockSize = 40;
-
-        BufferedImage image = new BufferedImage(
-                width * blockSize,
-                height * blockSize,
-                BufferedImage.TYPE_INT_RGB);
-        Graphics g = image.getGraphics();
-
-        // Draw the map
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int value = values.get(y).get(x);
-                Color color;
-
-                switch (value) {
-                    case 0: // Empty cell - gray gradient based on elevation
-                        int elevation = getElevationColor(x, y);
-                        color = new Color(elevation, elevation, elevation);
-                        break;
-                    case 1: // Wall - dark red
-                        color = new Color(139, 0, 0); // Dark red
-                        break;
-                    case 2: // Target - blue
-                        color = new Color(0, 0, 255);
-                        break;
-                    case 3: // Player - green
-                        color = new Color(0, 255, 0);
-                        break;
-                    default:
-                        color = Color.WHITE;
-                        break;
-                }
-
-                g.setColor(color);
-                g.fillRect(x * blockSize, y * blockSize, blockSize, blockSize);
-
-                // Draw grid lines
-                g.setColor(Color.DARK_GRAY);
-                g.drawRect(x * blockSize, y * blockSize, blockSize, blockSize);
-            }
-        }
-        g.dispose();
-
+        // Drawn into this thread's reused image, redrawing only the cells that changed
+        BufferedImage image = FrameRenderer.forThisThread().render(this);
         try {
             ImageIO.write(image, "png", new File(fileName));
         } catch (IOException e) {
@@ -98,10 +64,50 @@ public class ChartMap {
         }
     }
 
+    // RGB fill colour of a cell holding value
+    int getCellColor(int x, int y, int value) {
+        switch (value) {
+            case 0: // Empty cell - gray gradient based on elevation
+                int elevation = getElevationColor(x, y);
+                return elevation << 16 | elevation << 8 | elevation;
+            case 1: // Wall - dark red
+                return 0x8B0000;
+            case 2: // Target - blue
+                return 0x0000FF;
+            case 3: // Player - green
+                return 0x00FF00;
+            default:
+                return 0xFFFFFF;
+        }
+    }
+
     public void setElevation(Elevation elevation) {
         this.elevation = elevation;
     }
 
+    public Elevation getElevation() {
+        return elevation;
+    }
+
+    // Seed the level's elevation is generated from, when the level comes with one
+    public void setElevationSeed(long seed, int pyramidCount) {
+        this.hasElevationSeed = true;
+        this.elevationSeed = seed;
+        this.pyramidCount = pyramidCount;
+    }
+
+    public boolean hasElevationSeed() {
+        return hasElevationSeed;
+    }
+
+    public long getElevationSeed() {
+        return elevationSeed;
+    }
+
+    public int getPyramidCount() {
+        return pyramidCount;
+    }
+
     private int getElevationColor(int x, int y) {
         if (elevation != null) {
             int height = elevation.getHeight(x, y);
@@ -0,0 +1,59 @@
+/**
+ * States a search has already expanded. VisitedSet keeps every state;
+ * TranspositionTable has a fixed capacity and forgets states when full, in
+ * which case a forgotten state is simply expanded again when it comes back.
+ */
+abstract class ClosedSet {
+    protected long lookups;
+    protected long hits;
+    protected long evictions;
+
+    public abstract boolean contains(GameState state);
+
+    // Returns false if the state was already in the set
+    public abstract boolean add(GameState state);
+
+    // Adds the state, or lowers its stored cost; returns false if it was already
+    // closed with a cost that is no higher
+    public abstract boolean addIfCheaper(GameState state);
+
+    // Whether the state is closed with a cost no higher than its own
+    public abstract boolean containsNoWorse(GameState state);
+
+    public abstract int size();
+
+    // Copies of the entries, slot by slot (key 0 for a free slot), for a checkpoint of the search
+    public abstract Entries entries();
+
+    // Puts back an entry from entries(); state is only needed when the set verifies
+    public abstract void restore(long key, int cost, GameState state);
+
+    static final class Entries {
+        final long[] keys;
+        final int[] costs;
+        // null unless the set verifies
+        final GameState[] states;
+
+        Entries(long[] keys, int[] costs, GameState[] states) {
+            this.keys = keys;
+            this.costs = costs;
+            this.states = states;
+        }
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRate() {
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+}
@@ -1,32 +1,82 @@
+import java.io.PrintStream;
+
 public class Elevation {
     private int[][] heights;
+    // rowCost[y][x] / colCost[x][y]: movement cost of the first x (or y) cells of the row (or column)
+    private int[][] rowCost;
+    private int[][] colCost;
     private final int size;
     private final Scene scene;
     private final int pyramidCount;
+    private final boolean seeded;
+    private final long seed;
 
     public Elevation(int size) {
         this(size, 3); // Default 3 piramit
     }
 
     public Elevation(int size, int pyramidCount) {
+        this(size, pyramidCount, System.out);
+    }
+
+    public Elevation(int size, int pyramidCount, PrintStream out) {
+        this(new Scene(size, pyramidCount), size, pyramidCount, false, 0, out);
+    }
+
+    // Reproducible elevation, see Scene(int, int, long)
+    public Elevation(int size, int pyramidCount, long seed, PrintStream out) {
+        this(new Scene(size, pyramidCount, seed), size, pyramidCount, true, seed, out);
+    }
+
+    // Elevation with known heights, e.g. stored in a level pack; prints nothing
+    public Elevation(int[][] heights) {
+        this(new Scene(heights), heights.length, 0, false, 0, null);
+    }
+
+    private Elevation(Scene scene, int size, int pyramidCount, boolean seeded, long seed, PrintStream out) {
         this.size = size;
         this.pyramidCount = pyramidCount;
-        this.heights = new int[size][size];
-        this.scene = new Scene(size, pyramidCount);
-        generateElevations();
+        this.seeded = seeded;
+        this.seed = seed;
+        this.scene = scene;
+        generateElevations(out);
     }
 
-    private void generateElevations() {
-        // Copy elevations from Scene to our heights array
-        for (int y = 0; y < size; y++) {
-            for (int x = 0; x < size; x++) {
-                heights[y][x] = scene.getElevation(x, y);
+    private void generateElevations(PrintStream out) {
+        if (scene.size == size) {
+            // Nothing else writes to the scene, its grid can be used as it is
+            heights = scene.getElevations();
+        } else {
+            // Scene clamps its size; cells outside of it get Scene's -1
+            heights = new int[size][size];
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    heights[y][x] = scene.getElevation(x, y);
+                }
             }
         }
 
+        buildCostTables();
+        if (out == null) {
+            return;
+        }
+
         // Debug için yükseklikleri yazdır
-        System.out.println("Generated elevation map with " + pyramidCount + " pyramids:");
-        System.out.println(this.toString());
+        out.println("Generated elevation map with " + pyramidCount + " pyramids:");
+        out.println(this.toString());
+    }
+
+    public int getPyramidCount() {
+        return pyramidCount;
+    }
+
+    // Whether the elevation came from a seed and can be generated again
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public long getSeed() {
+        return seed;
     }
 
     public int getHeight(int x, int y) {
@@ -41,6 +91,29 @@ public class Elevation {
         return height + 1; // Yükseklik + 1 maliyet
     }
 
+    // Total movement cost of the straight segment between two cells, both ends included
+    public int getSegmentCost(int x1, int y1, int x2, int y2) {
+        if (y1 == y2) {
+            int from = Math.min(x1, x2);
+            int to = Math.max(x1, x2);
+            return rowCost[y1][to + 1] - rowCost[y1][from];
+        }
+        int from = Math.min(y1, y2);
+        int to = Math.max(y1, y2);
+        return colCost[x1][to + 1] - colCost[x1][from];
+    }
+
+    private void buildCostTables() {
+        rowCost = new int[size][size + 1];
+        colCost = new int[size][size + 1];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                rowCost[y][x + 1] = rowCost[y][x] + getMovementCost(x, y);
+                colCost[x][y + 1] = colCost[x][y] + getMovementCost(x, y);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return scene.toString();
@@ -0,0 +1,109 @@
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Draws maps straight into the int[] pixels of one reused image. Every cell
+ * is a BLOCK_SIZE tile with a grid line along its top and left edge, which
+ * depends only on the cell's fill colour, so tiles are built once per colour
+ * and copied row by row. The renderer remembers the colour of every cell it
+ * has drawn, and only cells whose colour changed since the last frame are
+ * copied again; along a replay that is the few cells of one slide.
+ *
+ * The pixels are the same as drawing every cell with fillRect and drawRect.
+ * A renderer is not thread-safe, use one per thread (see forThisThread).
+ */
+class FrameRenderer {
+    static final int BLOCK_SIZE = 40;
+    private static final int GRID_LINE = 0x404040; // Color.DARK_GRAY
+    private static final ThreadLocal<FrameRenderer> PER_THREAD = ThreadLocal.withInitial(FrameRenderer::new);
+
+    private final HashMap<Integer, int[]> tiles = new HashMap<>();
+    private BufferedImage image;
+    private int[] pixels;
+    private int[] drawn;
+    private int width;
+    private int height;
+    private long cellsDrawn;
+    private Rectangle dirtyBounds;
+
+    public static FrameRenderer forThisThread() {
+        return PER_THREAD.get();
+    }
+
+    // The returned image is reused by the next call
+    public BufferedImage render(ChartMap map) {
+        ArrayList<ArrayList<Integer>> values = map.getValues();
+        int mapHeight = values.size();
+        int mapWidth = values.get(0).size();
+        if (image == null || mapWidth != width || mapHeight != height) {
+            width = mapWidth;
+            height = mapHeight;
+            image = new BufferedImage(width * BLOCK_SIZE, height * BLOCK_SIZE, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            drawn = new int[width * height];
+            // No colour has the alpha bits set, so every cell is dirty
+            Arrays.fill(drawn, -1);
+        }
+
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = 0; y < height; y++) {
+            ArrayList<Integer> row = values.get(y);
+            for (int x = 0; x < width; x++) {
+                int color = map.getCellColor(x, y, row.get(x));
+                if (drawn[y * width + x] != color) {
+                    drawTile(x, y, color);
+                    drawn[y * width + x] = color;
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        dirtyBounds = maxX < 0 ? null
+                : new Rectangle(minX * BLOCK_SIZE, minY * BLOCK_SIZE,
+                        (maxX - minX + 1) * BLOCK_SIZE, (maxY - minY + 1) * BLOCK_SIZE);
+        return image;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    // Pixels redrawn by the last render(), or null if nothing changed
+    public Rectangle getDirtyBounds() {
+        return dirtyBounds;
+    }
+
+    // Number of tiles copied so far, for measuring how much a frame redraws
+    public long getCellsDrawn() {
+        return cellsDrawn;
+    }
+
+    private void drawTile(int x, int y, int color) {
+        int[] tile = tiles.computeIfAbsent(color, FrameRenderer::buildTile);
+        int stride = width * BLOCK_SIZE;
+        int offset = y * BLOCK_SIZE * stride + x * BLOCK_SIZE;
+        for (int row = 0; row < BLOCK_SIZE; row++) {
+            System.arraycopy(tile, row * BLOCK_SIZE, pixels, offset + row * stride, BLOCK_SIZE);
+        }
+        cellsDrawn++;
+    }
+
+    private static int[] buildTile(int color) {
+        int[] tile = new int[BLOCK_SIZE * BLOCK_SIZE];
+        for (int row = 0; row < BLOCK_SIZE; row++) {
+            for (int column = 0; column < BLOCK_SIZE; column++) {
+                tile[row * BLOCK_SIZE + column] = row == 0 || column == 0 ? GRID_LINE : color;
+            }
+        }
+        return tile;
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Background PNG writer for replay frames. Frames are immutable snapshots of
+ * a map, queued in a bounded queue and encoded and written by a small pool of
+ * writer threads. When the writers fall behind, submit() blocks until there is
+ * room again, so a long replay cannot pile up frames in memory.
+ */
+class FrameWriter implements AutoCloseable {
+    private static final Frame POISON = new Frame(null, null);
+
+    private final BlockingQueue<Frame> queue;
+    private final Thread[] writers;
+    private final Object lock = new Object();
+    private long submitted = 0;
+    private long completed = 0;
+    private boolean closed = false;
+
+    public FrameWriter(int threads, int queueCapacity) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        this.writers = new Thread[Math.max(threads, 1)];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new Thread(this::writeFrames, "frame-writer-" + i);
+            writers[i].setDaemon(true);
+            writers[i].start();
+        }
+    }
+
+    // Queues a copy of the map; blocks while the queue is full
+    public void submit(ChartMap map, Elevation elevation, String fileName) {
+        ChartMap snapshot = map.copy();
+        snapshot.setElevation(elevation);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("FrameWriter is closed");
+            }
+            submitted++;
+        }
+        try {
+            queue.put(new Frame(snapshot, fileName));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            frameDone();
+        }
+    }
+
+    // Waits until every frame submitted so far is on disk
+    public void flush() {
+        synchronized (lock) {
+            long target = submitted;
+            while (completed < target) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flush();
+        for (int i = 0; i < writers.length; i++) {
+            try {
+                queue.put(POISON);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void writeFrames() {
+        while (true) {
+            Frame frame;
+            try {
+                frame = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (frame == POISON) {
+                return;
+            }
+            try {
+                frame.map.saveAsPng(frame.fileName);
+            } catch (RuntimeException e) {
+                // Only this frame is lost; a dead writer would leave submit() blocked on a full queue
+                System.err.println("Could not write frame " + frame.fileName + ": " + e);
+            } finally {
+                frameDone();
+            }
+        }
+    }
+
+    private void frameDone() {
+        synchronized (lock) {
+            completed++;
+            lock.notifyAll();
+        }
+    }
+
+    private static class Frame {
+        final ChartMap map;
+        final String fileName;
+
+        Frame(ChartMap map, String fileName) {
+            this.map = map;
+            this.fileName = fileName;
+        }
+    }
+}
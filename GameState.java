@@ -1,25 +1,66 @@
-import java.util.ArrayList;
+import java.util.Arrays;
 
 class GameState extends State {
+    private final Board board;
+    private final long[] walls;
+    private final int position;
+    private final long hash;
+    private final int estimatedCost;
 
-    public GameState(int playerX, int playerY, ArrayList<ArrayList<Integer>> mapValues, ArrayList<String> moves,
-            int totalCost) {
-        super(playerX, playerY, mapValues, moves, totalCost);
+    // Initial state of a search
+    public GameState(Board board, int position, long[] walls) {
+        this(board, position, walls, board.hash(walls, position), null, (byte) -1, 0, 0);
+    }
+
+    // estimatedCost is f = g + h, computed once by the solver that creates the state
+    public GameState(Board board, int position, long[] walls, long hash, GameState parent, byte direction,
+            int totalCost, int estimatedCost) {
+        super(parent, direction, totalCost);
+        this.board = board;
+        this.position = position;
+        this.walls = walls;
+        this.hash = hash;
+        this.estimatedCost = estimatedCost;
+    }
+
+    @Override
+    public int getPlayerX() {
+        return board.xOf(position);
+    }
+
+    @Override
+    public int getPlayerY() {
+        return board.yOf(position);
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public long[] getWalls() {
+        return walls;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public int getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    // Full comparison, used to tell real duplicates from hash collisions
+    public boolean sameState(GameState other) {
+        return position == other.position && Arrays.equals(walls, other.walls);
     }
 
     @Override
     public String getUniqueIdentifier() {
-        // Unique identifier combining player position and blocked cells
+        // Unique identifier combining player position and the blocked-cell mask
         StringBuilder sb = new StringBuilder();
-        sb.append(playerX).append(',').append(playerY).append(';');
-        // Serialize only the blocked cells
-        for (int y = 0; y < mapValues.size(); y++) {
-            for (int x = 0; x < mapValues.get(y).size(); x++) {
-                int cell = mapValues.get(y).get(x);
-                if (cell == 1) {
-                    sb.append(x).append(',').append(y).append(';');
-                }
-            }
+        sb.append(position).append(';');
+        for (long word : walls) {
+            sb.append(Long.toHexString(word)).append(';');
         }
         return sb.toString();
     }
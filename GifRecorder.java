@@ -0,0 +1,215 @@
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Writes a level's replay as one animated GIF instead of a PNG per move.
+ * The first frame is the whole map; every later frame is only the bounding
+ * box of the cells that changed, placed over the previous frame, which along
+ * a replay is the strip of one slide. Frames are written to the file as
+ * they come, so nothing but the current frame is held in memory.
+ *
+ * All cell colours fit in a small fixed palette (see ChartMap.getCellColor);
+ * a colour outside of it, which only odd elevation heights can produce, is
+ * drawn with the closest palette entry.
+ */
+class GifRecorder implements AutoCloseable {
+    private static final String FORMAT = "javax_imageio_gif_image_1.0";
+    private static final String STREAM_FORMAT = "javax_imageio_gif_stream_1.0";
+    private static final int[] PALETTE = palette();
+    private static final IndexColorModel COLOR_MODEL = colorModel();
+
+    private final FrameRenderer renderer = new FrameRenderer();
+    private final HashMap<Integer, Byte> paletteIndex = new HashMap<>();
+    private final ImageWriter writer;
+    private final ImageOutputStream stream;
+    private final int delayCentiseconds;
+    private int frames = 0;
+
+    // width and height are the map's size in cells
+    public GifRecorder(String fileName, int width, int height, int delayMillis) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+        if (!writers.hasNext()) {
+            throw new IOException("No GIF writer available");
+        }
+        this.writer = writers.next();
+        File file = new File(fileName);
+        file.delete();
+        // Opened directly: ImageIO.createImageOutputStream only prints a failure and returns null
+        this.stream = new FileImageOutputStream(file);
+        this.delayCentiseconds = Math.max(delayMillis / 10, 1);
+        writer.setOutput(stream);
+        writer.prepareWriteSequence(streamMetadata(width * FrameRenderer.BLOCK_SIZE, height * FrameRenderer.BLOCK_SIZE));
+    }
+
+    public void addFrame(ChartMap map) throws IOException {
+        renderer.render(map);
+        Rectangle dirty = renderer.getDirtyBounds();
+        if (dirty == null) {
+            return;
+        }
+        BufferedImage frame = toIndexed(renderer.getImage(), dirty);
+        writer.writeToSequence(new IIOImage(frame, null, frameMetadata(frame, dirty)), null);
+        frames++;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.endWriteSequence();
+        } finally {
+            stream.close();
+            writer.dispose();
+        }
+    }
+
+    private BufferedImage toIndexed(BufferedImage image, Rectangle region) {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int stride = image.getWidth();
+        byte[] indices = new byte[region.width * region.height];
+        int lastColor = -1;
+        byte lastIndex = 0;
+        for (int y = 0; y < region.height; y++) {
+            int from = (region.y + y) * stride + region.x;
+            for (int x = 0; x < region.width; x++) {
+                int color = pixels[from + x] & 0xFFFFFF;
+                if (color != lastColor) {
+                    lastColor = color;
+                    lastIndex = paletteIndex.computeIfAbsent(color, GifRecorder::closestEntry);
+                }
+                indices[y * region.width + x] = lastIndex;
+            }
+        }
+        BufferedImage frame = new BufferedImage(region.width, region.height, BufferedImage.TYPE_BYTE_INDEXED,
+                COLOR_MODEL);
+        frame.getRaster().setDataElements(0, 0, region.width, region.height, indices);
+        return frame;
+    }
+
+    // Logical screen of the whole map, with the palette as the global colour table
+    private IIOMetadata streamMetadata(int width, int height) throws IOException {
+        IIOMetadata metadata = writer.getDefaultStreamMetadata(null);
+        IIOMetadataNode root = new IIOMetadataNode(STREAM_FORMAT);
+
+        IIOMetadataNode screen = new IIOMetadataNode("LogicalScreenDescriptor");
+        screen.setAttribute("logicalScreenWidth", Integer.toString(width));
+        screen.setAttribute("logicalScreenHeight", Integer.toString(height));
+        screen.setAttribute("colorResolution", "8");
+        screen.setAttribute("pixelAspectRatio", "0");
+        root.appendChild(screen);
+
+        IIOMetadataNode table = new IIOMetadataNode("GlobalColorTable");
+        table.setAttribute("sizeOfGlobalColorTable", Integer.toString(PALETTE.length));
+        table.setAttribute("backgroundColorIndex", "0");
+        table.setAttribute("sortFlag", "FALSE");
+        for (int i = 0; i < PALETTE.length; i++) {
+            IIOMetadataNode entry = new IIOMetadataNode("ColorTableEntry");
+            entry.setAttribute("index", Integer.toString(i));
+            entry.setAttribute("red", Integer.toString(PALETTE[i] >> 16 & 0xFF));
+            entry.setAttribute("green", Integer.toString(PALETTE[i] >> 8 & 0xFF));
+            entry.setAttribute("blue", Integer.toString(PALETTE[i] & 0xFF));
+            table.appendChild(entry);
+        }
+        root.appendChild(table);
+
+        metadata.mergeTree(STREAM_FORMAT, root);
+        return metadata;
+    }
+
+    private IIOMetadata frameMetadata(BufferedImage frame, Rectangle region) throws IOException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(frame), null);
+        IIOMetadataNode root = new IIOMetadataNode(FORMAT);
+
+        IIOMetadataNode descriptor = new IIOMetadataNode("ImageDescriptor");
+        descriptor.setAttribute("imageLeftPosition", Integer.toString(region.x));
+        descriptor.setAttribute("imageTopPosition", Integer.toString(region.y));
+        descriptor.setAttribute("imageWidth", Integer.toString(region.width));
+        descriptor.setAttribute("imageHeight", Integer.toString(region.height));
+        descriptor.setAttribute("interlaceFlag", "FALSE");
+        root.appendChild(descriptor);
+
+        // Keep the previous frame underneath, the new one only covers what changed
+        IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+        control.setAttribute("disposalMethod", "doNotDispose");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString(delayCentiseconds));
+        control.setAttribute("transparentColorIndex", "0");
+        root.appendChild(control);
+
+        if (frames == 0) {
+            // Loop forever
+            IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[] { 1, 0, 0 });
+            extensions.appendChild(loop);
+            root.appendChild(extensions);
+        }
+
+        metadata.mergeTree(FORMAT, root);
+        return metadata;
+    }
+
+    // Grid line, wall, target, player, missing value, and the elevation grays
+    private static int[] palette() {
+        int[] palette = new int[16];
+        int count = 0;
+        palette[count++] = 0x404040;
+        palette[count++] = 0x8B0000;
+        palette[count++] = 0x0000FF;
+        palette[count++] = 0x00FF00;
+        palette[count++] = 0xFFFFFF;
+        palette[count++] = 0x808080;
+        for (int gray = 60; gray <= 195; gray += 15) {
+            palette[count++] = gray << 16 | gray << 8 | gray;
+        }
+        return palette;
+    }
+
+    private static IndexColorModel colorModel() {
+        byte[] r = new byte[PALETTE.length];
+        byte[] g = new byte[PALETTE.length];
+        byte[] b = new byte[PALETTE.length];
+        for (int i = 0; i < PALETTE.length; i++) {
+            r[i] = (byte) (PALETTE[i] >> 16);
+            g[i] = (byte) (PALETTE[i] >> 8);
+            b[i] = (byte) PALETTE[i];
+        }
+        return new IndexColorModel(4, PALETTE.length, r, g, b);
+    }
+
+    private static byte closestEntry(int color) {
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < PALETTE.length; i++) {
+            int dr = (PALETTE[i] >> 16 & 0xFF) - (color >> 16 & 0xFF);
+            int dg = (PALETTE[i] >> 8 & 0xFF) - (color >> 8 & 0xFF);
+            int db = (PALETTE[i] & 0xFF) - (color & 0xFF);
+            int distance = dr * dr + dg * dg + db * db;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return (byte) best;
+    }
+}
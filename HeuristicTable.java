@@ -0,0 +1,112 @@
+import java.util.Arrays;
+
+/**
+ * Lower bound on the cost from every cell to the target, computed once per
+ * level. Whatever slides a solution makes, the player enters a 4-connected
+ * chain of cells that are not walls at the start, and pays each cell's
+ * movement cost (height + 1) on entering it. So the cheapest such chain,
+ * found with one Dijkstra search outwards from the target, never
+ * overestimates. It is also consistent, since a slide is itself such a
+ * chain, and unlike the Manhattan distance it accounts for the hills and
+ * for the walls in the way.
+ */
+class HeuristicTable {
+    // Cells from which the target cannot be reached at all
+    static final int UNREACHABLE = Integer.MAX_VALUE / 4;
+
+    private static final int[] DX = { 0, -1, 0, 1 };
+    private static final int[] DY = { -1, 0, 1, 0 };
+
+    private final int[] costToTarget;
+
+    public HeuristicTable(Board board, Elevation elevation) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        costToTarget = new int[width * height];
+        Arrays.fill(costToTarget, UNREACHABLE);
+        int targetX = board.getTargetX();
+        int targetY = board.getTargetY();
+        if (targetX < 0) {
+            return;
+        }
+
+        long[] walls = board.copyInitialWalls();
+        // Entries are distance << 32 | cell; stale ones are skipped when popped
+        long[] heap = new long[Math.max(width * height, 16)];
+        int heapSize = 0;
+        int target = board.index(targetX, targetY);
+        costToTarget[target] = 0;
+        heap[heapSize++] = target;
+
+        while (heapSize > 0) {
+            long top = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            int cell = (int) top;
+            int distance = (int) (top >>> 32);
+            if (distance > costToTarget[cell]) {
+                continue;
+            }
+            int x = board.xOf(cell);
+            int y = board.yOf(cell);
+            // Stepping from a neighbour onto this cell costs this cell's movement cost
+            int enter = distance + elevation.getMovementCost(x, y);
+            for (int direction = 0; direction < DX.length; direction++) {
+                int nx = x + DX[direction];
+                int ny = y + DY[direction];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height || board.isWall(walls, nx, ny)) {
+                    continue;
+                }
+                int neighbour = board.index(nx, ny);
+                if (enter < costToTarget[neighbour]) {
+                    costToTarget[neighbour] = enter;
+                    if (heapSize == heap.length) {
+                        heap = Arrays.copyOf(heap, heap.length * 2);
+                    }
+                    heap[heapSize] = (long) enter << 32 | neighbour;
+                    siftUp(heap, heapSize++);
+                }
+            }
+        }
+    }
+
+    public int get(int position) {
+        return costToTarget[position];
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long entry = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long entry = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= entry) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = entry;
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.Arrays;
+
+/**
+ * Iterative-deepening A*. Each iteration is a depth-first search that cuts
+ * off at an f-value threshold, and the next threshold is the smallest f that
+ * was cut off. Memory is one stack frame per move of the current path, so it
+ * stays linear in the solution depth however large the map is.
+ *
+ * Every move adds walls, so a path can never revisit a state and no cycle
+ * check is needed. An optional small direct-mapped transposition table skips
+ * states already searched in the same iteration. A state's cost is fixed by
+ * its walls and position (every cell entered so far is now a wall or the
+ * player's cell), so a duplicate has the same subtree and the same cut-offs,
+ * and skipping it cannot change the next threshold. Losing an entry to a
+ * later state only costs a re-search, never correctness.
+ */
+class IdaStarSolver extends Solver {
+    private final int tableSize;
+    private long[] tableKeys;
+    private int[] tableCosts;
+
+    public IdaStarSolver(Board board, Elevation elevation) {
+        this(board, elevation, 1 << 16);
+    }
+
+    // tableSize 0 turns the transposition table off
+    public IdaStarSolver(Board board, Elevation elevation, int tableSize) {
+        super(board, elevation);
+        this.tableSize = tableSize > 0 ? Integer.highestOneBit(tableSize) : 0;
+    }
+
+    @Override
+    public GameState solve(GameState initialState) {
+        if (isGoal(initialState)) {
+            return initialState;
+        }
+        if (tableSize > 0) {
+            tableKeys = new long[tableSize];
+            tableCosts = new int[tableSize];
+        }
+
+        GameState[] path = new GameState[64];
+        int[] nextDirection = new int[64];
+        int threshold = initialState.getTotalCost() + heuristic(initialState);
+
+        while (threshold != Integer.MAX_VALUE) {
+            if (tableSize > 0) {
+                Arrays.fill(tableKeys, 0);
+            }
+            int nextThreshold = Integer.MAX_VALUE;
+            int depth = 0;
+            path[0] = initialState;
+            nextDirection[0] = 0;
+            metrics.expanded();
+
+            while (depth >= 0) {
+                if (isCancelled()) {
+                    return null;
+                }
+                if (nextDirection[depth] == DIR_X.length) {
+                    path[depth] = null;
+                    depth--;
+                    continue;
+                }
+                GameState nextState = simulateMove(path[depth], nextDirection[depth]++);
+                if (nextState == null)
+                    continue;
+                metrics.generated();
+
+                int f = nextState.getEstimatedCost();
+                if (f > threshold) {
+                    nextThreshold = Math.min(nextThreshold, f);
+                    continue;
+                }
+                if (isGoal(nextState)) {
+                    // No solution was within the previous threshold, so this one is optimal
+                    return nextState;
+                }
+                if (isDead(nextState)) {
+                    metrics.deadState();
+                    continue;
+                }
+                if (seenThisIteration(nextState)) {
+                    metrics.duplicate();
+                    continue;
+                }
+
+                depth++;
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    nextDirection = Arrays.copyOf(nextDirection, depth * 2);
+                }
+                path[depth] = nextState;
+                nextDirection[depth] = 0;
+                metrics.expanded();
+                metrics.openSize(depth + 1);
+                if (trace.isEnabled(Trace.EXPANSIONS)) {
+                    trace.printf(Trace.EXPANSIONS, "Expanding (%d,%d) g=%d depth=%d threshold=%d%n",
+                            nextState.getPlayerX(), nextState.getPlayerY(), nextState.getTotalCost(), depth,
+                            threshold);
+                }
+            }
+
+            threshold = nextThreshold;
+        }
+
+        return null;
+    }
+
+    // Records the state; true if it was already searched this iteration
+    private boolean seenThisIteration(GameState state) {
+        if (tableSize == 0) {
+            return false;
+        }
+        long key = state.getHash() == 0 ? 1 : state.getHash();
+        int slot = (int) (key ^ (key >>> 32)) & (tableSize - 1);
+        if (tableKeys[slot] == key && tableCosts[slot] == state.getTotalCost()) {
+            return true;
+        }
+        tableKeys[slot] = key;
+        tableCosts[slot] = state.getTotalCost();
+        return false;
+    }
+}
@@ -0,0 +1,254 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Re-solves a level after small edits, for a level editor that changes a
+ * few cells or the elevation and wants the optimal cost again right away.
+ *
+ * A search state is the player's cell plus every wall, so a single edited
+ * wall renames every state and LPA*-style repair of g-values over the state
+ * graph does not carry over. What does carry over is keyed by the trail
+ * instead (the cells the player has left, without the level's own walls):
+ * where each of a state's four slides ends, and which of them lead to dead
+ * states. Costs are not part of it, so new heights keep everything. A wall
+ * edit only drops the states whose slides ran into the edited cell, and the
+ * dead verdicts (which look at the whole board); moving the target drops
+ * everything. The previous solution, replayed on the edited level, is the
+ * starting upper bound, so the search only has to prove or beat it.
+ */
+class IncrementalSolver {
+    // Above this many remembered expansions the memory is dropped and refilled
+    private static final int MAX_EXPANSIONS = 1 << 20;
+
+    private final ArrayList<ArrayList<Integer>> values;
+    private final HashMap<Long, Expansion> expansions = new HashMap<>();
+    private Elevation elevation;
+    private Board board;
+    private ArrayList<String> lastMoves;
+    private SolverMetrics metrics = new SolverMetrics("");
+    private long reused;
+
+    private static final class Expansion {
+        final int position;
+        // End cell of each slide, the position itself if the slide is blocked
+        final int[] ends = new int[4];
+        byte deadMask;
+        boolean deadKnown;
+
+        Expansion(int position) {
+            this.position = position;
+        }
+    }
+
+    // Works on its own copy of the values; edits go through setCell
+    public IncrementalSolver(ArrayList<ArrayList<Integer>> values, Elevation elevation) {
+        this.values = new ArrayList<>();
+        for (ArrayList<Integer> row : values) {
+            this.values.add(new ArrayList<>(row));
+        }
+        this.elevation = elevation;
+    }
+
+    public void setCell(int x, int y, int value) {
+        int old = values.get(y).get(x);
+        if (old == value) {
+            return;
+        }
+        values.get(y).set(x, value);
+        board = null;
+        if (old == 2 || value == 2) {
+            // Every slide across the target's row or column stops somewhere else now
+            expansions.clear();
+        } else if ((old == 1) != (value == 1)) {
+            dropSlidesThrough(x, y);
+        }
+    }
+
+    // New heights change costs only, every remembered slide stays valid
+    public void setElevation(Elevation elevation) {
+        this.elevation = elevation;
+    }
+
+    public int getCell(int x, int y) {
+        return values.get(y).get(x);
+    }
+
+    // Optimal goal state for the level as it is now, or null if it cannot be solved
+    public GameState solve() {
+        if (board == null) {
+            board = new Board(values);
+        }
+        if (expansions.size() > MAX_EXPANSIONS) {
+            expansions.clear();
+        }
+        metrics = new SolverMetrics("");
+        reused = 0;
+        Search search = new Search(board, elevation);
+        search.setMetrics(metrics);
+        GameState goal = search.solve(new GameState(board, playerIndex(), board.copyInitialWalls()));
+        lastMoves = goal != null ? goal.getMoves() : null;
+        return goal;
+    }
+
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Expansions of the last solve() answered from memory
+    public long getReusedExpansions() {
+        return reused;
+    }
+
+    public int getRememberedExpansions() {
+        return expansions.size();
+    }
+
+    private int playerIndex() {
+        for (int y = 0; y < values.size(); y++) {
+            for (int x = 0; x < values.get(y).size(); x++) {
+                if (values.get(y).get(x) == 3) { // 3 -> player
+                    return board.index(x, y);
+                }
+            }
+        }
+        throw new IllegalStateException("Level has no player");
+    }
+
+    // Forgets the slides that passed through (x, y) or stopped against it, and every dead verdict
+    private void dropSlidesThrough(int x, int y) {
+        // Whether a state is dead depends on the whole board, so any wall edit can change it
+        for (Expansion expansion : expansions.values()) {
+            expansion.deadKnown = false;
+        }
+        int width = values.get(0).size();
+        expansions.values().removeIf(expansion -> {
+            int px = expansion.position % width;
+            int py = expansion.position / width;
+            if (px != x && py != y) {
+                return false;
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                int ex = expansion.ends[direction] % width;
+                int ey = expansion.ends[direction] / width;
+                // The slide covers the cells after the start up to the end, plus the cell that stopped it
+                boolean hit = switch (direction) {
+                    case 0 -> x == px && y < py && y >= ey - 1;
+                    case 1 -> y == py && x < px && x >= ex - 1;
+                    case 2 -> x == px && y > py && y <= ey + 1;
+                    default -> y == py && x > px && x <= ex + 1;
+                };
+                if (hit) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private class Search extends Solver {
+        private final long levelWallsKey;
+
+        Search(Board board, Elevation elevation) {
+            super(board, elevation);
+            // XORed out of a state's hash, this leaves the key of its trail and position
+            this.levelWallsKey = board.hash(board.copyInitialWalls(), 0) ^ board.playerKey(0);
+        }
+
+        @Override
+        public GameState solve(GameState initialState) {
+            GameState start = withEstimate(initialState);
+            if (isDead(start)) {
+                return null;
+            }
+            GameState incumbent = replay(start, lastMoves);
+            int bound = incumbent != null ? incumbent.getTotalCost() : Integer.MAX_VALUE;
+
+            BucketQueue openSet = new BucketQueue();
+            ClosedSet visited = newClosedSet(1);
+            openSet.add(start);
+            try {
+                while (!openSet.isEmpty()) {
+                    if (isCancelled()) {
+                        return null;
+                    }
+                    metrics.openSize(openSet.size());
+                    GameState currentState = openSet.poll();
+                    if (currentState.getEstimatedCost() >= bound) {
+                        // Nothing left can beat the previous solution
+                        return incumbent;
+                    }
+                    if (isGoal(currentState)) {
+                        return currentState;
+                    }
+                    if (!visited.add(currentState)) {
+                        metrics.duplicate();
+                        continue;
+                    }
+                    metrics.expanded();
+                    metrics.visitedSize(visited.size());
+                    expand(currentState, openSet, visited);
+                }
+                return incumbent;
+            } finally {
+                metrics.closedSet(visited);
+            }
+        }
+
+        private void expand(GameState currentState, BucketQueue openSet, ClosedSet visited) {
+            int position = currentState.getPosition();
+            long key = currentState.getHash() ^ levelWallsKey;
+            Expansion expansion = expansions.get(key);
+            // Keys are hashes; one that comes back with another position belongs to another state
+            if (expansion == null || expansion.position != position) {
+                expansion = new Expansion(position);
+                for (int direction = 0; direction < 4; direction++) {
+                    expansion.ends[direction] = board.slideEnd(currentState.getWalls(), position, direction);
+                }
+                expansions.put(key, expansion);
+            } else {
+                reused++;
+            }
+
+            boolean deadKnown = expansion.deadKnown;
+            if (!deadKnown) {
+                expansion.deadMask = 0;
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                int end = expansion.ends[direction];
+                if (end == position || (deadKnown && (expansion.deadMask & 1 << direction) != 0)) {
+                    continue;
+                }
+                GameState nextState = simulateMove(currentState, direction, end);
+                metrics.generated();
+                if (!deadKnown && isDead(nextState)) {
+                    expansion.deadMask |= 1 << direction;
+                }
+                if ((expansion.deadMask & 1 << direction) != 0) {
+                    metrics.deadState();
+                    continue;
+                }
+                if (!visited.contains(nextState)) {
+                    openSet.add(nextState);
+                } else {
+                    metrics.duplicate();
+                }
+            }
+            expansion.deadKnown = true;
+        }
+
+        // The previous solution on the edited level, or null if it no longer plays out
+        private GameState replay(GameState state, ArrayList<String> moves) {
+            if (moves == null) {
+                return null;
+            }
+            for (String move : moves) {
+                int direction = "WASD".indexOf(move);
+                state = direction < 0 ? null : simulateMove(state, direction);
+                if (state == null) {
+                    return null;
+                }
+            }
+            return isGoal(state) ? state : null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("pathblocker.Level")
+@Label("Level")
+@Category({ "PathBlocker", "Solver" })
+@Description("Solving and rendering one level")
+class LevelEvent extends jdk.jfr.Event {
+    @Label("Level")
+    String level;
+
+    @Label("Solution Cost")
+    int cost;
+
+    @Label("Nodes Expanded")
+    long nodesExpanded;
+
+    @Label("Nodes Generated")
+    long nodesGenerated;
+
+    @Label("Duplicates Pruned")
+    long duplicatesPruned;
+
+    @Label("Dead States Pruned")
+    long deadStatesPruned;
+
+    @Label("Peak Open Size")
+    long peakOpenSize;
+}
@@ -0,0 +1,210 @@
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generated levels for stress testing, from a few cells to thousands per
+ * side.
+ *
+ * Elevation uses Scene's pyramids (same seed, same centres, same heights as
+ * Scene for the sizes Scene supports), but is filled in parallel row bands
+ * on the common fork-join pool. Each cell only looks at pyramids close
+ * enough to reach it, and the square root of the distance comes from a
+ * table, since only small integer squared distances give a height above 0.
+ * The filled array is handed to Elevation as is, without another copy.
+ *
+ * Layouts are built by playing a random game forwards: every slide stops
+ * where the generator wants it to, by putting a wall right after the last
+ * cell when the slide would otherwise go on, and the last slide ends on the
+ * target. Walls only ever go on cells no slide has passed through, so later
+ * walls never change an earlier slide, and the moves played are a solution.
+ * The remaining untouched cells are then walled at random for clutter, for
+ * the same reason without affecting that solution.
+ */
+class LevelGenerator {
+    private static final int TOP_LEVEL = 9;
+    private static final int BAND = 4;
+    // Rows per fork-join task
+    private static final int MIN_ROWS = 32;
+    // height(d) = max((int) (TOP_LEVEL - 1.2 * d), 0) is positive only below this squared distance
+    private static final int[] HEIGHT_BY_SQUARED_DISTANCE = heightTable();
+
+    private static final int[] DX = { 0, -1, 0, 1 };
+    private static final int[] DY = { -1, 0, 1, 0 };
+
+    private LevelGenerator() {
+    }
+
+    public static Elevation elevation(int size, int pyramidCount, long seed) {
+        return new Elevation(heights(size, pyramidCount, seed));
+    }
+
+    // Pyramids for a generated level: the game's count up to Scene's largest size, and Scene's density of one
+    // per 400 cells, without its limit of 8, above it
+    public static int pyramidsFor(int size) {
+        return size <= 60 ? PathBlocker.PYRAMIDS : size * size / 400;
+    }
+
+    // Scene's pyramid field for any size; for sizes 8 to 60 it equals Scene(size, pyramidCount, seed)
+    public static int[][] heights(int size, int pyramidCount, long seed) {
+        Random random = new Random(seed);
+        int count = Math.max(pyramidCount, 1);
+        if (size <= 60) {
+            count = Math.min(count, 8);
+        }
+        int[] centerX = new int[count];
+        int[] centerY = new int[count];
+        for (int i = 0; i < count; i++) {
+            centerX[i] = random.nextInt(size + 2 * BAND) - BAND;
+            centerY[i] = random.nextInt(size + 2 * BAND) - BAND;
+        }
+
+        int[][] heights = new int[size][];
+        ForkJoinPool.commonPool().invoke(new FillRows(heights, size, centerX, centerY, 0, size));
+        return heights;
+    }
+
+    private static class FillRows extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] heights;
+        private final int size;
+        private final int[] centerX;
+        private final int[] centerY;
+        private final int from;
+        private final int to;
+
+        FillRows(int[][] heights, int size, int[] centerX, int[] centerY, int from, int to) {
+            this.heights = heights;
+            this.size = size;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MIN_ROWS) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FillRows(heights, size, centerX, centerY, from, middle),
+                        new FillRows(heights, size, centerX, centerY, middle, to));
+                return;
+            }
+            int reach = HEIGHT_BY_SQUARED_DISTANCE.length;
+            for (int y = from; y < to; y++) {
+                int[] row = new int[size];
+                for (int i = 0; i < centerX.length; i++) {
+                    int dy = y - centerY[i];
+                    int remaining = reach - dy * dy;
+                    if (remaining <= 0) {
+                        continue;
+                    }
+                    int span = (int) Math.sqrt(remaining) + 1;
+                    int x0 = Math.max(centerX[i] - span, 0);
+                    int x1 = Math.min(centerX[i] + span, size - 1);
+                    for (int x = x0; x <= x1; x++) {
+                        int dx = x - centerX[i];
+                        int d2 = dx * dx + dy * dy;
+                        if (d2 < reach && HEIGHT_BY_SQUARED_DISTANCE[d2] > row[x]) {
+                            row[x] = HEIGHT_BY_SQUARED_DISTANCE[d2];
+                        }
+                    }
+                }
+                heights[y] = row;
+            }
+        }
+    }
+
+    private static int[] heightTable() {
+        int reach = 0;
+        while ((int) (TOP_LEVEL - Math.sqrt(reach) * 1.2) > 0) {
+            reach++;
+        }
+        int[] table = new int[reach];
+        for (int d2 = 0; d2 < reach; d2++) {
+            table[d2] = (int) (TOP_LEVEL - Math.sqrt(d2) * 1.2);
+        }
+        return table;
+    }
+
+    /**
+     * A width x height level with a solution of up to maxSlides slides, and
+     * about wallDensity of the cells the solution does not touch walled.
+     */
+    public static LevelGrid layout(int width, int height, int maxSlides, double wallDensity, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[] cells = new byte[width * height];
+        boolean[] touched = new boolean[width * height];
+
+        int player = random.nextInt(width * height);
+        int position = player;
+        touched[position] = true;
+
+        int[] options = new int[4];
+        int[] lengths = new int[4];
+        for (int slide = 0; slide < Math.max(maxSlides, 1); slide++) {
+            int count = 0;
+            for (int direction = 0; direction < 4; direction++) {
+                int length = freeRun(cells, touched, width, height, position, direction);
+                if (length > 0) {
+                    options[count] = direction;
+                    lengths[count++] = length;
+                }
+            }
+            if (count == 0) {
+                break;
+            }
+            int pick = random.nextInt(count);
+            int direction = options[pick];
+            int length = 1 + random.nextInt(lengths[pick]);
+            int x = position % width + DX[direction] * length;
+            int y = position / width + DY[direction] * length;
+
+            // Stop the slide here: the cell after it is either already blocked or becomes a wall
+            int afterX = x + DX[direction];
+            int afterY = y + DY[direction];
+            if (length < lengths[pick]) {
+                cells[afterY * width + afterX] = 1;
+            }
+            for (int step = 1; step <= length; step++) {
+                touched[(position / width + DY[direction] * step) * width + position % width
+                        + DX[direction] * step] = true;
+            }
+            position = y * width + x;
+        }
+
+        if (position == player) {
+            // Not a single move fit (a 1x1 level); nothing to solve
+            throw new IllegalArgumentException("Level is too small: " + width + "x" + height);
+        }
+        cells[player] = 3;
+        cells[position] = 2;
+        for (int i = 0; i < cells.length; i++) {
+            if (!touched[i] && cells[i] == 0 && random.nextDouble() < wallDensity) {
+                cells[i] = 1;
+            }
+        }
+        return new LevelGrid(width, height, cells);
+    }
+
+    // Open, untouched cells in a row from position in the given direction
+    private static int freeRun(byte[] cells, boolean[] touched, int width, int height, int position, int direction) {
+        int x = position % width;
+        int y = position / width;
+        int length = 0;
+        while (true) {
+            x += DX[direction];
+            y += DY[direction];
+            if (x < 0 || x >= width || y < 0 || y >= height) {
+                return length;
+            }
+            int index = y * width + x;
+            if (cells[index] != 0 || touched[index]) {
+                return length;
+            }
+            length++;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.ArrayList;
+
+/**
+ * A level as read from disk: one byte per cell, row by row. This is what the
+ * loader produces; ChartMap's boxed lists are only built for the level that
+ * is actually being played.
+ */
+class LevelGrid {
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+
+    public LevelGrid(int width, int height, byte[] cells) {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " cells, got " + cells.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+    }
+
+    public static LevelGrid of(ArrayList<ArrayList<Integer>> values) {
+        int height = values.size();
+        int width = height > 0 ? values.get(0).size() : 0;
+        byte[] cells = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                cells[y * width + x] = (byte) (int) values.get(y).get(x);
+            }
+        }
+        return new LevelGrid(width, height, cells);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int get(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    public ArrayList<ArrayList<Integer>> toValues() {
+        ArrayList<ArrayList<Integer>> values = new ArrayList<>(height);
+        for (int y = 0; y < height; y++) {
+            ArrayList<Integer> row = new ArrayList<>(width);
+            for (int x = 0; x < width; x++) {
+                row.add((int) cells[y * width + x]);
+            }
+            values.add(row);
+        }
+        return values;
+    }
+}
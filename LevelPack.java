@@ -0,0 +1,275 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary level pack. The file is memory-mapped and levels are decoded on
+ * demand by index, so opening a pack costs the same for ten levels or ten
+ * thousand and any level can be read without touching the others.
+ *
+ * Layout, big-endian:
+ *
+ *   header   "PBLP", version, level count, offset of the index (long)
+ *   levels   width, height (shorts), flags (byte),
+ *            seed (long) and pyramid count (byte) if FLAG_SEED,
+ *            cells, 2 bits each, row by row, padded to a byte,
+ *            height*height elevation bytes if FLAG_HEIGHTS
+ *   index    one long offset per level
+ *
+ * Cells are 0..3 (empty, wall, target, player), which is what fits in two
+ * bits. The index is written last, so a pack can be converted in one pass
+ * from a stream of levels of unknown length.
+ */
+class LevelPack implements Closeable {
+    private static final int MAGIC = 0x50424C50; // "PBLP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8;
+    static final int FLAG_SEED = 1;
+    static final int FLAG_HEIGHTS = 2;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final int count;
+    private final int indexOffset;
+
+    private LevelPack(FileChannel channel) throws IOException {
+        this.channel = channel;
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Level packs are limited to 2 GB");
+        }
+        this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a level pack");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported level pack version " + data.getInt(4));
+        }
+        this.count = data.getInt(8);
+        this.indexOffset = (int) data.getLong(12);
+        if (indexOffset < HEADER_BYTES || indexOffset + 8L * count > data.limit()) {
+            throw new IOException("Level pack index is out of bounds");
+        }
+    }
+
+    public static LevelPack open(String path) throws IOException {
+        return new LevelPack(FileChannel.open(Paths.get(path), StandardOpenOption.READ));
+    }
+
+    public static boolean isPack(String path) {
+        return path.endsWith(".pack");
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Only absolute reads are used, so levels can be decoded from several threads at once
+    public LevelGrid grid(int index) {
+        int offset = offsetOf(index);
+        int width = data.getShort(offset);
+        int height = data.getShort(offset + 2);
+        int flags = data.get(offset + 4);
+        int cellOffset = offset + 5 + ((flags & FLAG_SEED) != 0 ? 9 : 0);
+
+        byte[] cells = new byte[width * height];
+        for (int i = 0; i < cells.length; i++) {
+            int packed = data.get(cellOffset + (i >> 2));
+            cells[i] = (byte) ((packed >> ((i & 3) * 2)) & 3);
+        }
+        return new LevelGrid(width, height, cells);
+    }
+
+    // The level as a ChartMap, carrying its stored elevation heights or seed if it has any
+    public ChartMap map(int index) {
+        int offset = offsetOf(index);
+        int width = data.getShort(offset);
+        int height = data.getShort(offset + 2);
+        int flags = data.get(offset + 4);
+
+        ChartMap map = new ChartMap(grid(index));
+        if ((flags & FLAG_SEED) != 0) {
+            map.setElevationSeed(data.getLong(offset + 5), data.get(offset + 13));
+        }
+        if ((flags & FLAG_HEIGHTS) != 0) {
+            int heightOffset = offset + 5 + ((flags & FLAG_SEED) != 0 ? 9 : 0) + packedBytes(width * height);
+            int[][] heights = new int[height][height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < height; x++) {
+                    heights[y][x] = data.get(heightOffset + y * height + x);
+                }
+            }
+            map.setElevation(new Elevation(heights));
+        }
+        return map;
+    }
+
+    // Maps the levels from first to last (both included), in order, as they are asked for
+    public Iterator<ChartMap> maps(int first, int last) {
+        return new Iterator<ChartMap>() {
+            private int next = Math.max(first, 0);
+            private final int end = Math.min(last, count - 1);
+
+            @Override
+            public boolean hasNext() {
+                return next <= end;
+            }
+
+            @Override
+            public ChartMap next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return map(next++);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int offsetOf(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Level " + index + " of " + count);
+        }
+        return (int) data.getLong(indexOffset + 8 * index);
+    }
+
+    private static int packedBytes(int cells) {
+        return (cells + 3) / 4;
+    }
+
+    /**
+     * Writes a pack level by level. Levels are appended as they come and the
+     * index is kept in memory (8 bytes a level) until close(). A level that
+     * cannot be added leaves no pack behind: close() then deletes the file
+     * instead of writing its index.
+     */
+    static class Writer implements Closeable {
+        private final Path file;
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long[] offsets = new long[64];
+        private int count = 0;
+        private long position = HEADER_BYTES;
+        private boolean failed;
+
+        public Writer(String path) throws IOException {
+            this.file = Paths.get(path);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_BYTES);
+        }
+
+        // heights and the seed are optional: pass null, or hasSeed false, to leave them out
+        public void add(LevelGrid grid, boolean hasSeed, long seed, int pyramidCount, Elevation heights)
+                throws IOException {
+            // Until the level is complete in the buffer, a failure leaves a pack whose index would be wrong
+            failed = true;
+            int width = grid.getWidth();
+            int height = grid.getHeight();
+            if (width > Short.MAX_VALUE || height > Short.MAX_VALUE) {
+                throw new IOException("Level is too large for a pack: " + width + "x" + height);
+            }
+            for (int i = 0; i < width * height; i++) {
+                int value = grid.get(i % width, i / width);
+                if (value < 0 || value > 3) {
+                    throw new IOException("Cell value " + value + " does not fit in a pack");
+                }
+            }
+            int flags = (hasSeed ? FLAG_SEED : 0) | (heights != null ? FLAG_HEIGHTS : 0);
+            int bytes = 5 + (hasSeed ? 9 : 0) + packedBytes(width * height) + (heights != null ? height * height : 0);
+            ensureRoom(bytes);
+
+            buffer.putShort((short) width);
+            buffer.putShort((short) height);
+            buffer.put((byte) flags);
+            if (hasSeed) {
+                buffer.putLong(seed);
+                buffer.put((byte) pyramidCount);
+            }
+            int packed = 0;
+            for (int i = 0; i < width * height; i++) {
+                packed |= grid.get(i % width, i / width) << ((i & 3) * 2);
+                if ((i & 3) == 3) {
+                    buffer.put((byte) packed);
+                    packed = 0;
+                }
+            }
+            if ((width * height & 3) != 0) {
+                buffer.put((byte) packed);
+            }
+            if (heights != null) {
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < height; x++) {
+                        buffer.put((byte) heights.getHeight(x, y));
+                    }
+                }
+            }
+
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = position;
+            position += bytes;
+            failed = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (failed) {
+                channel.close();
+                Files.deleteIfExists(file);
+                return;
+            }
+            try {
+                flushBuffer();
+                long indexOffset = position;
+                ByteBuffer index = ByteBuffer.allocate(8 * count);
+                for (int i = 0; i < count; i++) {
+                    index.putLong(offsets[i]);
+                }
+                index.flip();
+                writeFully(index);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(count).putLong(indexOffset).flip();
+                channel.position(0);
+                writeFully(header);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void ensureRoom(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flushBuffer();
+                if (buffer.capacity() < bytes) {
+                    buffer = ByteBuffer.allocate(bytes);
+                }
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+}
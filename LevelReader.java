@@ -0,0 +1,193 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads levels one at a time from a list of text files. A file holds one or
+ * more levels, separated by blank lines; every level is rows of
+ * whitespace-separated cell values. Only the level being parsed is held in
+ * memory, so a pack of thousands of levels loads in constant space.
+ *
+ * Files are read through a FileChannel into one reusable buffer and numbers
+ * are parsed byte by byte, so a level costs one byte array and no strings.
+ */
+class LevelReader implements Iterator<LevelGrid>, Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String[] filePaths;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private int nextFile = 0;
+    private ReadableByteChannel channel;
+    private ReadableByteChannel source;
+    private String currentFile;
+    private int line;
+    private boolean eof = true;
+
+    private byte[] cells = new byte[256];
+    private LevelGrid next;
+
+    public LevelReader(String... filePaths) {
+        this.filePaths = filePaths.clone();
+    }
+
+    // Levels from any channel, e.g. a request body; name is only used in error messages
+    public LevelReader(ReadableByteChannel source, String name) {
+        this.filePaths = new String[] { name };
+        this.source = source;
+    }
+
+    // The levels as a lazy stream; closing the stream closes the reader
+    public static Stream<LevelGrid> stream(String... filePaths) {
+        LevelReader reader = new LevelReader(filePaths);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(reader::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readLevel();
+            } catch (IOException e) {
+                throw new UncheckedIOException(currentFile + ": " + e.getMessage(), e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public LevelGrid next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        LevelGrid level = next;
+        next = null;
+        return level;
+    }
+
+    @Override
+    public void close() {
+        closeChannel();
+        nextFile = filePaths.length;
+    }
+
+    private LevelGrid readLevel() throws IOException {
+        while (true) {
+            if (eof && !openNextFile()) {
+                return null;
+            }
+            LevelGrid level = parseLevel();
+            if (level != null) {
+                return level;
+            }
+        }
+    }
+
+    private boolean openNextFile() throws IOException {
+        closeChannel();
+        if (nextFile >= filePaths.length) {
+            return false;
+        }
+        currentFile = filePaths[nextFile++];
+        if (source != null) {
+            channel = source;
+            source = null;
+        } else {
+            channel = FileChannel.open(Paths.get(currentFile), StandardOpenOption.READ);
+        }
+        buffer.clear().flip();
+        line = 1;
+        eof = false;
+        return true;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Read-only, nothing is lost
+            }
+            channel = null;
+        }
+    }
+
+    // Reads rows up to a blank line or the end of the file; null if there were no rows
+    private LevelGrid parseLevel() throws IOException {
+        int width = -1;
+        int height = 0;
+        int count = 0;
+        int rowLength = 0;
+        int value = -1;
+
+        while (true) {
+            int b = read();
+            if (b >= '0' && b <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (b - '0');
+                if (value > Byte.MAX_VALUE) {
+                    throw new IOException("line " + line + ": cell value too large");
+                }
+                continue;
+            }
+            if (value >= 0) {
+                if (count == cells.length) {
+                    cells = Arrays.copyOf(cells, cells.length * 2);
+                }
+                cells[count++] = (byte) value;
+                rowLength++;
+                value = -1;
+            }
+            if (b == ' ' || b == '\t' || b == '\r') {
+                continue;
+            }
+            if (b != '\n' && b != -1) {
+                throw new IOException("line " + line + ": unexpected character '" + (char) b + "'");
+            }
+
+            boolean blank = rowLength == 0;
+            if (!blank) {
+                if (width < 0) {
+                    width = rowLength;
+                } else if (rowLength != width) {
+                    throw new IOException("line " + line + ": row has " + rowLength + " cells, expected " + width);
+                }
+                height++;
+                rowLength = 0;
+            }
+            if (b == -1) {
+                break;
+            }
+            line++;
+            if (blank && height > 0) {
+                // A blank line ends the level
+                break;
+            }
+        }
+        return height == 0 ? null : new LevelGrid(width, height, Arrays.copyOf(cells, count));
+    }
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int n = channel.read(buffer);
+            buffer.flip();
+            if (n <= 0) {
+                eof = true;
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+}
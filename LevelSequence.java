@@ -0,0 +1,93 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * The levels of a run: text files and level packs one after the other,
+ * numbered from 1 across all of them, limited to the levels first..last of
+ * that numbering. Levels of a pack before first are skipped by index
+ * without being decoded; a text file has to be read past them.
+ */
+class LevelSequence implements Iterator<ChartMap> {
+    private final String[] filePaths;
+    private final int first;
+    private final int last;
+    private int nextFile = 0;
+    private int nextLevel = 1;
+    private Iterator<ChartMap> current = Collections.emptyIterator();
+    private Stream<LevelGrid> text;
+    private LevelPack pack;
+
+    public LevelSequence(String[] filePaths, int first, int last) {
+        this.filePaths = filePaths.clone();
+        this.first = Math.max(first, 1);
+        this.last = last;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (nextLevel <= last) {
+            if (current.hasNext()) {
+                if (nextLevel >= first) {
+                    return true;
+                }
+                current.next();
+                nextLevel++;
+                continue;
+            }
+            if (nextFile >= filePaths.length) {
+                break;
+            }
+            openNextFile();
+        }
+        closeFile();
+        return false;
+    }
+
+    @Override
+    public ChartMap next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        nextLevel++;
+        return current.next();
+    }
+
+    private void openNextFile() {
+        closeFile();
+        String path = filePaths[nextFile++];
+        if (!LevelPack.isPack(path)) {
+            // Kept to be closed, the iterator alone would leave the file open until the reader is collected
+            text = LevelReader.stream(path);
+            current = text.map(ChartMap::new).iterator();
+            return;
+        }
+        try {
+            pack = LevelPack.open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(path + ": " + e.getMessage(), e);
+        }
+        int skip = Math.max(first - nextLevel, 0);
+        int take = last - nextLevel - skip;
+        nextLevel += Math.min(skip, pack.size());
+        current = pack.maps(skip, (int) Math.min((long) skip + take, Integer.MAX_VALUE));
+    }
+
+    private void closeFile() {
+        if (text != null) {
+            text.close();
+            text = null;
+        }
+        if (pack != null) {
+            try {
+                pack.close();
+            } catch (IOException e) {
+                // Read-only, nothing is lost
+            }
+            pack = null;
+        }
+    }
+}
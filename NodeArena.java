@@ -0,0 +1,145 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Search nodes as fixed-size records in direct buffers, outside the Java
+ * heap. A node is an int handle, the index of its record:
+ *
+ *   hash (8) | parent (4) | g (4) | f (4) | position (4) | next (4) | direction (4) | walls (8 per word)
+ *
+ * parent is the handle of the node it was reached from, -1 for the root, and
+ * next is a free link for a list the node is on (the open list's buckets).
+ * Records are appended to 1 MB chunks, allocated as the search grows and
+ * released together when the arena is dropped; nothing is ever freed one by
+ * one, so there is nothing for the garbage collector to trace per node.
+ */
+class NodeArena {
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int HASH = 0;
+    private static final int PARENT = 8;
+    private static final int COST = 12;
+    private static final int ESTIMATE = 16;
+    private static final int POSITION = 20;
+    private static final int NEXT = 24;
+    private static final int DIRECTION = 28;
+    private static final int WALLS = 32;
+
+    private final int words;
+    private final int recordBytes;
+    private final int chunkShift;
+    private final int recordMask;
+    private ByteBuffer[] chunks = new ByteBuffer[4];
+    private int chunkCount;
+    private int size;
+
+    public NodeArena(int words) {
+        this.words = words;
+        this.recordBytes = WALLS + 8 * words;
+        // A power of two of records per chunk, so a handle splits into chunk and record with a shift
+        int recordsPerChunk = Integer.highestOneBit(Math.max(CHUNK_BYTES / recordBytes, 1));
+        this.chunkShift = Integer.numberOfTrailingZeros(recordsPerChunk);
+        this.recordMask = recordsPerChunk - 1;
+    }
+
+    // Appends a node and returns its handle
+    public int add(long hash, int parent, int cost, int estimate, int position, int direction, long[] walls) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Node arena is full");
+        }
+        int node = size;
+        int chunk = node >>> chunkShift;
+        if (chunk == chunkCount) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunks[chunkCount++] = ByteBuffer.allocateDirect((recordMask + 1) * recordBytes)
+                    .order(ByteOrder.nativeOrder());
+        }
+        ByteBuffer buffer = chunks[chunk];
+        int offset = offset(node);
+        buffer.putLong(offset + HASH, hash);
+        buffer.putInt(offset + PARENT, parent);
+        buffer.putInt(offset + COST, cost);
+        buffer.putInt(offset + ESTIMATE, estimate);
+        buffer.putInt(offset + POSITION, position);
+        buffer.putInt(offset + NEXT, -1);
+        buffer.putInt(offset + DIRECTION, direction);
+        for (int w = 0; w < words; w++) {
+            buffer.putLong(offset + WALLS + 8 * w, walls[w]);
+        }
+        size++;
+        return node;
+    }
+
+    public long hash(int node) {
+        return chunk(node).getLong(offset(node) + HASH);
+    }
+
+    public int parent(int node) {
+        return chunk(node).getInt(offset(node) + PARENT);
+    }
+
+    public int cost(int node) {
+        return chunk(node).getInt(offset(node) + COST);
+    }
+
+    public int estimate(int node) {
+        return chunk(node).getInt(offset(node) + ESTIMATE);
+    }
+
+    public int position(int node) {
+        return chunk(node).getInt(offset(node) + POSITION);
+    }
+
+    public int direction(int node) {
+        return chunk(node).getInt(offset(node) + DIRECTION);
+    }
+
+    public int next(int node) {
+        return chunk(node).getInt(offset(node) + NEXT);
+    }
+
+    public void setNext(int node, int next) {
+        chunk(node).putInt(offset(node) + NEXT, next);
+    }
+
+    public void readWalls(int node, long[] walls) {
+        ByteBuffer buffer = chunk(node);
+        int offset = offset(node) + WALLS;
+        for (int w = 0; w < words; w++) {
+            walls[w] = buffer.getLong(offset + 8 * w);
+        }
+    }
+
+    public boolean sameState(int node, int position, long[] walls) {
+        ByteBuffer buffer = chunk(node);
+        int offset = offset(node);
+        if (buffer.getInt(offset + POSITION) != position) {
+            return false;
+        }
+        for (int w = 0; w < words; w++) {
+            if (buffer.getLong(offset + WALLS + 8 * w) != walls[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Off-heap memory taken so far
+    public long bytes() {
+        return (long) chunkCount * (recordMask + 1) * recordBytes;
+    }
+
+    private ByteBuffer chunk(int node) {
+        return chunks[node >>> chunkShift];
+    }
+
+    private int offset(int node) {
+        return (node & recordMask) * recordBytes;
+    }
+}
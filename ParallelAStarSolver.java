@@ -0,0 +1,200 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hash-distributed A* (HDA*). Every state is owned by one worker, picked from
+ * its Zobrist hash, and only the owner keeps it in its open list and closed
+ * set. Successors owned by another worker are posted to that worker's inbox.
+ *
+ * A goal found by any worker only becomes the incumbent; workers keep going
+ * until no worker has a node with f below the incumbent cost and no node is
+ * in flight, at which point the incumbent is optimal. Termination is tracked
+ * with a single counter of active workers plus nodes waiting in inboxes, so
+ * it can never read zero while there is still work somewhere.
+ */
+class ParallelAStarSolver extends Solver {
+    private final int threads;
+
+    private List<ConcurrentLinkedQueue<GameState>> inboxes;
+    private AtomicLong pending;
+    private AtomicReference<GameState> incumbent;
+    private volatile boolean done;
+
+    public ParallelAStarSolver(Board board, Elevation elevation, int threads) {
+        super(board, elevation);
+        this.threads = Math.max(threads, 1);
+    }
+
+    @Override
+    public GameState solve(GameState initialState) {
+        inboxes = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            inboxes.add(new ConcurrentLinkedQueue<>());
+        }
+        pending = new AtomicLong();
+        incumbent = new AtomicReference<>();
+        done = false;
+
+        GameState start = withEstimate(initialState);
+        if (isDead(start)) {
+            // The target cannot be reached from the start at all
+            return null;
+        }
+        send(start);
+
+        Worker[] workers = new Worker[threads];
+        Thread[] workerThreads = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i);
+            workerThreads[i] = new Thread(workers[i], "astar-worker-" + i);
+            workerThreads[i].start();
+        }
+        for (Thread worker : workerThreads) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done = true;
+            }
+        }
+        for (Worker worker : workers) {
+            worker.localMetrics.closedSet(worker.closed);
+            metrics.merge(worker.localMetrics);
+        }
+
+        return isCancelled() ? null : incumbent.get();
+    }
+
+    private int ownerOf(GameState state) {
+        // High bits, the closed sets already index by the low ones
+        return (int) ((state.getHash() >>> 33) % threads);
+    }
+
+    private void send(GameState state) {
+        pending.incrementAndGet();
+        inboxes.get(ownerOf(state)).add(state);
+    }
+
+    private int incumbentCost() {
+        GameState best = incumbent.get();
+        return best == null ? Integer.MAX_VALUE : best.getTotalCost();
+    }
+
+    private void offerSolution(GameState goal) {
+        GameState current;
+        while ((current = incumbent.get()) == null || goal.getTotalCost() < current.getTotalCost()) {
+            if (incumbent.compareAndSet(current, goal)) {
+                return;
+            }
+        }
+    }
+
+    private int f(GameState state) {
+        return state.getEstimatedCost();
+    }
+
+    private class Worker implements Runnable {
+        private final int id;
+        private final BucketQueue openSet = new BucketQueue();
+        private final ClosedSet closed = newClosedSet(threads);
+        private final SolverMetrics localMetrics = new SolverMetrics(metrics.getLevel());
+        private boolean active = false;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            while (!done) {
+                if (isCancelled()) {
+                    done = true;
+                    break;
+                }
+                drainInbox();
+
+                GameState currentState = openSet.peek();
+                if (currentState == null || f(currentState) >= incumbentCost()) {
+                    goIdle();
+                    continue;
+                }
+                localMetrics.openSize(openSet.size());
+                openSet.poll();
+
+                if (isGoal(currentState)) {
+                    offerSolution(currentState);
+                    continue;
+                }
+
+                if (!closed.addIfCheaper(currentState)) {
+                    localMetrics.duplicate();
+                    continue;
+                }
+                localMetrics.expanded();
+                localMetrics.visitedSize(closed.size());
+
+                for (int i = 0; i < DIR_X.length; i++) {
+                    GameState nextState = simulateMove(currentState, i);
+                    if (nextState == null)
+                        continue;
+                    localMetrics.generated();
+                    if (f(nextState) >= incumbentCost())
+                        continue;
+                    if (isDead(nextState)) {
+                        localMetrics.deadState();
+                        continue;
+                    }
+                    if (isGoal(nextState)) {
+                        // Tighten the bound early, the goal itself needs no expansion
+                        offerSolution(nextState);
+                        continue;
+                    }
+                    if (ownerOf(nextState) == id) {
+                        if (!closed.containsNoWorse(nextState)) {
+                            openSet.add(nextState);
+                        } else {
+                            localMetrics.duplicate();
+                        }
+                    } else {
+                        send(nextState);
+                    }
+                }
+            }
+        }
+
+        private void drainInbox() {
+            GameState received;
+            while ((received = inboxes.get(id).poll()) != null) {
+                if (!active) {
+                    // The message's share of the pending count becomes ours
+                    active = true;
+                } else {
+                    pending.decrementAndGet();
+                }
+                if (!closed.containsNoWorse(received)) {
+                    openSet.add(received);
+                } else {
+                    localMetrics.duplicate();
+                }
+            }
+        }
+
+        private void goIdle() {
+            if (active) {
+                active = false;
+                if (pending.decrementAndGet() == 0) {
+                    done = true;
+                    return;
+                }
+            } else if (pending.get() == 0) {
+                done = true;
+                return;
+            }
+            LockSupport.parkNanos(20_000);
+        }
+    }
+}
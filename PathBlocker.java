@@ -1,7 +1,14 @@
 import java.util.*;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
 
 class PathBlocker {
+    static final int PYRAMIDS = 5;
+
     private ChartMap map;
     private Player player;
     private int targetX;
@@ -10,24 +17,95 @@ class PathBlocker {
     private String levelFolder;
     private ArrayList<ChartMap> winningMaps = new ArrayList<>();
     private Elevation elevation;
+    private Board board;
+    private boolean verifyHashCollisions = false;
+    private boolean pruneDeadStates = true;
+    private PrintStream out;
+    private GameState solution;
+    private FrameWriter frameWriter;
+    private SolverMetrics metrics;
+    private LevelEvent levelEvent;
+    private int traceVerbosity = Trace.OFF;
+    private int traceRate = 100;
+    private int threads = 1;
+    private SolverMode solverMode = SolverMode.AUTO;
+    private int closedSetEntries = 0;
+    private long closedSetBytes = 0;
+    private TranspositionTable.Policy closedSetPolicy = TranspositionTable.Policy.CLOCK;
+    private SolutionCache solutionCache;
+    private int animationDelay = 0;
+    private GifRecorder recorder;
+    private long anytimeDeadline = 0;
+    private long anytimeExpansions = 0;
+    private double anytimeWeight = 3.0;
+    private String checkpointDirectory;
+    private long checkpointInterval;
 
     public PathBlocker(ChartMap map, String levelFolder) {
+        this(map, levelFolder, System.out);
+    }
+
+    // All console output of this level goes to out, so levels solved side by side can be printed in order
+    public PathBlocker(ChartMap map, String levelFolder, PrintStream out) {
+        this(map, levelFolder, out, null);
+    }
+
+    // With a frameWriter, PNG frames are encoded and written in the background
+    public PathBlocker(ChartMap map, String levelFolder, PrintStream out, FrameWriter frameWriter) {
+        this(map, levelFolder, out, frameWriter, null);
+    }
+
+    // A null elevation generates a random one, as before
+    public PathBlocker(ChartMap map, String levelFolder, PrintStream out, FrameWriter frameWriter,
+            Elevation elevation) {
+        this(map, levelFolder, out, frameWriter, elevation, false, 0);
+    }
+
+    // Generates the elevation from seed, so every run sees the same level
+    public PathBlocker(ChartMap map, String levelFolder, PrintStream out, FrameWriter frameWriter, long seed) {
+        this(map, levelFolder, out, frameWriter, null, true, seed);
+    }
+
+    private PathBlocker(ChartMap map, String levelFolder, PrintStream out, FrameWriter frameWriter,
+            Elevation elevation, boolean seeded, long seed) {
         this.map = map;
         this.levelFolder = levelFolder;
-        this.elevation = new Elevation(map.getValues().size(), 5);
+        this.out = out;
+        this.frameWriter = frameWriter;
+        this.metrics = new SolverMetrics(levelFolder);
+        this.levelEvent = new LevelEvent();
+        levelEvent.level = levelFolder;
+        levelEvent.begin();
+
+        metrics.beginPhase(SolverMetrics.Phase.ELEVATION);
+        int size = map.getValues().size();
+        if (elevation != null) {
+            this.elevation = elevation;
+        } else if (seeded) {
+            this.elevation = new Elevation(size, PYRAMIDS, seed, out);
+        } else if (map.getElevation() != null) {
+            // Heights stored with the level, e.g. in a level pack
+            this.elevation = map.getElevation();
+        } else if (map.hasElevationSeed()) {
+            this.elevation = new Elevation(size, map.getPyramidCount(), map.getElevationSeed(), out);
+        } else {
+            this.elevation = new Elevation(size, PYRAMIDS, out);
+        }
+        // The level was read before it got here; this is building the game and board from it
+        metrics.beginPhase(SolverMetrics.Phase.SETUP);
         initializeGame();
-        ensureDirectoryExists(levelFolder);
+        this.board = new Board(map.getValues());
+        metrics.beginPhase(SolverMetrics.Phase.RENDER);
 
         // İlk haritayı elevation ile birlikte kaydet
-        map.setElevation(elevation);
+        map.setElevation(this.elevation);
         ChartMap initialMap = new ChartMap(deepCopyValues(map.getValues()));
-        initialMap.setElevation(elevation);
+        initialMap.setElevation(this.elevation);
         winningMaps.add(initialMap);
 
-        System.out.println("Elevation Map:");
-        System.out.println(elevation.toString());
-
-        saveInitialMapState();
+        out.println("Elevation Map:");
+        out.println(this.elevation.toString());
+        metrics.endPhase();
     }
 
     private void initializeGame() {
@@ -46,109 +124,245 @@ class PathBlocker {
     }
 
     public void play() {
-        // Priority queue ordered by f(n) = g(n) + h(n)
-        PriorityQueue<State> openSet = new PriorityQueue<>((a, b) -> {
-            int f1 = a.getTotalCost() + manhattanDistance(a.getPlayerX(), a.getPlayerY(), targetX, targetY);
-            int f2 = b.getTotalCost() + manhattanDistance(b.getPlayerX(), b.getPlayerY(), targetX, targetY);
-            return Integer.compare(f1, f2);
-        });
-
-        Set<String> visited = new HashSet<>();
-
-        // Initialize starting state
-        ArrayList<String> initialMoves = new ArrayList<>();
-        ArrayList<ArrayList<Integer>> initialMapValues = deepCopyValues(map.getValues());
-        State initialState = new GameState(player.getX(), player.getY(), initialMapValues, initialMoves, 0);
-        openSet.add(initialState);
-
-        State finalState = null;
-        boolean solutionFound = false;
-
-        while (!openSet.isEmpty()) {
-            State currentState = openSet.poll();
-
-            if (currentState.getPlayerX() == targetX && currentState.getPlayerY() == targetY) {
-                solutionFound = true;
-                finalState = currentState;
-                break;
+        metrics.beginPhase(SolverMetrics.Phase.RENDER);
+        startRecording();
+        metrics.endPhase();
+        try {
+            solveAndReplay();
+        } finally {
+            finishRecording();
+        }
+        out.println(metrics);
+        commitLevelEvent();
+    }
+
+    private void solveAndReplay() {
+        GameState initialState = new GameState(board, board.index(player.getX(), player.getY()),
+                board.copyInitialWalls());
+
+        Solver solver = createSolver();
+        String cacheKey = null;
+        if (solutionCache != null && elevation.isSeeded()) {
+            cacheKey = SolutionCache.key(winningMaps.get(0).getValues(), elevation.getSeed(),
+                    elevation.getPyramidCount());
+            GameState cached = loadCachedSolution(solver, initialState, cacheKey);
+            if (cached != null) {
+                solution = cached;
+                out.println("Solution loaded from cache with total cost: " + cached.getTotalCost());
+                metrics.beginPhase(SolverMetrics.Phase.RENDER);
+                replaySolution(cached.getMoves());
+                metrics.endPhase();
+                return;
             }
+        }
 
-            String stateId = currentState.getUniqueIdentifier();
-            if (visited.contains(stateId))
-                continue;
-            visited.add(stateId);
+        solver.setVerifyHashCollisions(verifyHashCollisions);
+        solver.setPruneDeadStates(pruneDeadStates);
+        solver.setClosedSetLimit(closedSetLimit(), closedSetPolicy);
+        if (solver instanceof ArenaAStarSolver && closedSetLimit() > 0) {
+            out.println("The arena solver does not cap its closed set, --closed-entries and --closed-memory are ignored");
+        }
+        solver.setMetrics(metrics);
+        Trace trace = new Trace(out, traceVerbosity, traceRate);
+        solver.setTrace(trace);
+        if (checkpointDirectory != null) {
+            if (!elevation.isSeeded()) {
+                out.println("Checkpoints need a seeded elevation, this level has none");
+            } else if (solver instanceof AStarSolver astar) {
+                astar.setCheckpoint(new SearchCheckpoint(Paths.get(checkpointDirectory, levelFolder + ".ckpt"),
+                        checkpointInterval, out));
+            } else {
+                out.println("Checkpoints are only kept by the single-threaded A* solver, this level has none");
+            }
+        }
 
-            // Try all possible moves
-            String[] directions = { "W", "A", "S", "D" };
-            int[][] dirVectors = { { 0, -1 }, { -1, 0 }, { 0, 1 }, { 1, 0 } };
+        metrics.beginPhase(SolverMetrics.Phase.SEARCH);
+        GameState finalState = solver.solve(initialState);
+        metrics.endPhase();
+        trace.finish();
+        solution = finalState;
 
-            for (int i = 0; i < directions.length; i++) {
-                String move = directions[i];
-                int dirX = dirVectors[i][0];
-                int dirY = dirVectors[i][1];
+        if (finalState != null) {
+            out.println("Solution found with total cost: " + finalState.getTotalCost());
+            if (!solver.isSolutionOptimal()) {
+                out.printf("Budget ran out, within %.3f times the optimal cost%n", solver.getBound());
+            }
+            // Only optimal solutions are worth replaying on later runs
+            if (cacheKey != null && solver.isSolutionOptimal()) {
+                solutionCache.put(cacheKey, finalState.getTotalCost(), finalState.getMoves());
+            }
+            metrics.beginPhase(SolverMetrics.Phase.RENDER);
+            replaySolution(finalState.getMoves());
+            metrics.endPhase();
+        } else if (solver.isExhausted()) {
+            out.println("No solution found within the budget.");
+        } else {
+            out.println("No solution found.");
+        }
+    }
 
-                State nextState = simulateMove(currentState, dirX, dirY, move);
-                if (nextState != null && !visited.contains(nextState.getUniqueIdentifier())) {
-                    openSet.add(nextState);
-                }
+    // Frame 0: the first PNG in the level folder, or the first frame of levelNN.gif
+    private void startRecording() {
+        if (animationDelay > 0) {
+            try {
+                ArrayList<ArrayList<Integer>> values = map.getValues();
+                recorder = new GifRecorder(levelFolder + ".gif", values.get(0).size(), values.size(), animationDelay);
+            } catch (IOException e) {
+                // Without a recorder every frame would be dropped, so write PNGs instead
+                out.println("Could not open " + levelFolder + ".gif (" + e.getMessage() + "), writing PNG frames instead");
+                animationDelay = 0;
             }
         }
+        if (animationDelay == 0) {
+            ensureDirectoryExists(levelFolder);
+        }
+        saveInitialMapState();
+    }
 
-        if (solutionFound) {
-            System.out.println("Solution found with total cost: " + finalState.getTotalCost());
-            replaySolution(finalState.getMoves());
+    private void finishRecording() {
+        if (recorder == null) {
             return;
-        } else {
-            System.out.println("No solution found.");
         }
+        try {
+            recorder.close();
+            out.println(levelFolder + ".gif saved (" + recorder.getFrames() + " frames).");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        recorder = null;
     }
 
-    private int manhattanDistance(int x1, int y1, int x2, int y2) {
-        return Math.abs(x1 - x2) + Math.abs(y1 - y2);
+    // Writes the replay as one animated GIF, showing each frame for delayMillis, instead of a PNG per move
+    public void setAnimatedOutput(int delayMillis) {
+        this.animationDelay = delayMillis;
     }
 
-    private State simulateMove(State currentState, int dirX, int dirY, String move) {
-        int currentX = currentState.getPlayerX();
-        int currentY = currentState.getPlayerY();
-        ArrayList<ArrayList<Integer>> values = deepCopyValues(currentState.getMapValues());
-        int totalCost = currentState.getTotalCost();
+    // Replays a cached move list through the solver's own move rules; anything that does
+    // not end on the target with the stored cost is ignored and the level is solved again
+    private GameState loadCachedSolution(Solver solver, GameState initialState, String cacheKey) {
+        SolutionCache.Entry entry = solutionCache.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        GameState state = initialState;
+        for (String move : entry.moves) {
+            int direction = Arrays.asList(State.DIRECTIONS).indexOf(move);
+            state = direction < 0 ? null : solver.simulateMove(state, direction);
+            if (state == null) {
+                return null;
+            }
+        }
+        if (!solver.isGoal(state) || state.getTotalCost() != entry.cost) {
+            return null;
+        }
+        return state;
+    }
 
-        values.get(currentY).set(currentX, 1);
-        boolean canMove = false;
+    private void commitLevelEvent() {
+        levelEvent.cost = getSolutionCost();
+        levelEvent.nodesExpanded = metrics.getNodesExpanded();
+        levelEvent.nodesGenerated = metrics.getNodesGenerated();
+        levelEvent.duplicatesPruned = metrics.getDuplicatesPruned();
+        levelEvent.deadStatesPruned = metrics.getDeadStatesPruned();
+        levelEvent.peakOpenSize = metrics.getPeakOpenSize();
+        levelEvent.commit();
+    }
 
-        while (true) {
-            int nextX = currentX + dirX;
-            int nextY = currentY + dirY;
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
 
-            if (!isValidMove(nextX, nextY, values))
-                break;
+    // Solver trace: Trace.EXPANSIONS or Trace.SLIDES, at most maxPerSecond lines a second
+    public void setTrace(int verbosity, int maxPerSecond) {
+        this.traceVerbosity = verbosity;
+        this.traceRate = maxPerSecond;
+    }
 
-            int nextValue = values.get(nextY).get(nextX);
-            int heightCost = elevation.getMovementCost(nextX, nextY);
-            totalCost += heightCost;
-            System.out.printf("Moving to (%d,%d) with height %d, cost: %d\n",
-                    nextX, nextY, elevation.getHeight(nextX, nextY), heightCost);
+    // Cost of the solution found by play(), or -1 if there is none (yet)
+    public int getSolutionCost() {
+        return solution == null ? -1 : solution.getTotalCost();
+    }
 
-            currentX = nextX;
-            currentY = nextY;
-            canMove = true;
+    // Keeps the full states in the closed set and compares them on hash matches
+    public void setVerifyHashCollisions(boolean verifyHashCollisions) {
+        this.verifyHashCollisions = verifyHashCollisions;
+    }
 
-            if (nextValue == 2) {
-                break;
-            }
+    // Reachability pruning of successors that are cut off from the target (on by default)
+    public void setPruneDeadStates(boolean pruneDeadStates) {
+        this.pruneDeadStates = pruneDeadStates;
+    }
+
+    // Caps the A* closed set at a number of states; 0 keeps every state
+    public void setClosedSetEntries(int entries, TranspositionTable.Policy policy) {
+        this.closedSetEntries = entries;
+        this.closedSetPolicy = policy;
+    }
 
-            values.get(currentY).set(currentX, 1);
+    // Caps the A* closed set at roughly this many bytes; 0 keeps every state
+    public void setClosedSetMemory(long bytes, TranspositionTable.Policy policy) {
+        this.closedSetBytes = bytes;
+        this.closedSetPolicy = policy;
+    }
+
+    private int closedSetLimit() {
+        if (closedSetEntries > 0) {
+            return closedSetEntries;
         }
+        return closedSetBytes > 0 ? TranspositionTable.entriesForBudget(closedSetBytes, verifyHashCollisions, board.getWords())
+                : 0;
+    }
 
-        if (!canMove) {
-            return null;
+    // Reuses solutions of earlier runs for levels with a seeded elevation
+    public void setSolutionCache(SolutionCache solutionCache) {
+        this.solutionCache = solutionCache;
+    }
+
+    private Solver createSolver() {
+        SolverMode mode = solverMode.resolve(board);
+        if (mode == SolverMode.IDASTAR) {
+            return new IdaStarSolver(board, elevation);
+        }
+        if (mode == SolverMode.ARENA) {
+            return new ArenaAStarSolver(board, elevation);
+        }
+        if (mode == SolverMode.ANYTIME) {
+            AnytimeSolver solver = new AnytimeSolver(board, elevation);
+            solver.setInitialWeight(anytimeWeight);
+            solver.setDeadline(anytimeDeadline);
+            solver.setMaxExpansions(anytimeExpansions);
+            solver.setListener((solution, bound, expanded, elapsedNanos) -> out.printf(
+                    "Anytime: cost %d, at most %.3f times optimal, after %d expansions, %.1f ms%n",
+                    solution.getTotalCost(), bound, expanded, elapsedNanos / 1e6));
+            return solver;
         }
+        return threads > 1
+                ? new ParallelAStarSolver(board, elevation, threads)
+                : new AStarSolver(board, elevation);
+    }
+
+    // A*, IDA*, ARENA, ANYTIME, or AUTO to pick IDA* only for maps too large for A*'s memory
+    public void setSolverMode(SolverMode solverMode) {
+        this.solverMode = solverMode;
+    }
 
-        values.get(currentY).set(currentX, 3);
-        ArrayList<String> newMoves = new ArrayList<>(currentState.getMoves());
-        newMoves.add(move);
+    // Budget of the ANYTIME solver: milliseconds and expansions (0 for no limit), and its first weight
+    public void setAnytimeBudget(long deadlineMillis, long maxExpansions, double initialWeight) {
+        this.anytimeDeadline = deadlineMillis;
+        this.anytimeExpansions = maxExpansions;
+        this.anytimeWeight = initialWeight;
+    }
 
-        return new GameState(currentX, currentY, values, newMoves, totalCost);
+    // Saves a running A* search to DIRECTORY/levelNN.ckpt every intervalMillis (0: only when the
+    // process is stopped) and resumes from it on the next run
+    public void setCheckpoint(String directory, long intervalMillis) {
+        this.checkpointDirectory = directory;
+        this.checkpointInterval = intervalMillis;
+    }
+
+    // Number of search threads; more than one selects the parallel A* solver
+    public void setThreads(int threads) {
+        this.threads = Math.max(threads, 1);
     }
 
     private boolean isValidMove(int x, int y, ArrayList<ArrayList<Integer>> values) {
@@ -175,7 +389,7 @@ class PathBlocker {
         ChartMap initialMap = new ChartMap(deepCopyValues(map.getValues()));
         initialMap.setElevation(elevation);
         winningMaps.add(initialMap);
-        saveMapWithElevation(String.format("%s/%04d.png", levelFolder, moveCount));
+        // Frame 0 is the same image saveInitialMapState() already wrote, don't queue it twice
         moveCount++;
 
         for (String move : moves) {
@@ -226,7 +440,7 @@ class PathBlocker {
             }
 
             if (!canMove) {
-                System.out.println("Cannot move!");
+                out.println("Cannot move!");
                 return;
             }
 
@@ -241,7 +455,7 @@ class PathBlocker {
             moveCount++;
 
             if (reachedTarget) {
-                System.out.println("Target reached! Moving to next level...");
+                out.println("Target reached! Moving to next level...");
                 return; // saveAllMaps() çağrısını kaldırdık
             }
         }
@@ -252,7 +466,9 @@ class PathBlocker {
     private void saveInitialMapState() {
         String fileName = String.format("%s/%04d.png", levelFolder, moveCount);
         saveMapWithElevation(fileName);
-        System.out.println(fileName + " saved.");
+        if (animationDelay <= 0) {
+            out.println(fileName + " saved.");
+        }
         moveCount++;
     }
 
@@ -282,25 +498,300 @@ class PathBlocker {
         }
     }
 
+    // Writes the levels to a level pack, with their elevation seed when a seed is given, and with
+    // the elevation heights themselves (seeded or random) if heights is set
+    private static void convertToPack(Iterator<ChartMap> maps, String packPath, int firstLevel, Long seed,
+            boolean heights) {
+        int count = 0;
+        try (LevelPack.Writer writer = new LevelPack.Writer(packPath)) {
+            for (int level = firstLevel; maps.hasNext(); level++) {
+                ChartMap map = maps.next();
+                LevelGrid grid = LevelGrid.of(map.getValues());
+                boolean seeded = seed != null || map.hasElevationSeed();
+                long levelSeed = seed != null ? levelSeed(seed, level) : map.getElevationSeed();
+                int pyramids = seed != null || !map.hasElevationSeed() ? PYRAMIDS : map.getPyramidCount();
+                Elevation elevation = null;
+                if (heights) {
+                    elevation = map.getElevation();
+                    if (elevation == null) {
+                        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+                        elevation = seeded
+                                ? new Elevation(grid.getHeight(), pyramids, levelSeed, quiet)
+                                : new Elevation(grid.getHeight(), pyramids, quiet);
+                    }
+                }
+                writer.add(grid, seeded, levelSeed, pyramids, elevation);
+                count++;
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write " + packPath + ": " + e.getMessage());
+            return;
+        }
+        System.out.println("Wrote " + count + " levels to " + packPath);
+    }
+
+    // Writes count generated, solvable size x size levels with their elevation heights to a level pack
+    private static void generatePack(String packPath, int count, int size, double walls, long seed) {
+        int pyramids = LevelGenerator.pyramidsFor(size);
+        try (LevelPack.Writer writer = new LevelPack.Writer(packPath)) {
+            for (int level = 1; level <= count; level++) {
+                long levelSeed = levelSeed(seed, level);
+                LevelGrid grid = LevelGenerator.layout(size, size, 4 * size, walls, levelSeed);
+                Elevation elevation = LevelGenerator.elevation(size, pyramids, levelSeed);
+                writer.add(grid, false, 0, 0, elevation);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write " + packPath + ": " + e.getMessage());
+            return;
+        }
+        System.out.println("Generated " + count + " levels of " + size + "x" + size + " in " + packPath
+                + " (seed " + seed + ")");
+    }
+
+    // Elevation seed of a level in a run started with --seed
+    public static long levelSeed(long seed, int level) {
+        return seed + level;
+    }
+
     public static void main(String[] args) {
+        int threads = 1;
+        int batch = 0;
+        int writers = Runtime.getRuntime().availableProcessors();
+        int trace = Trace.OFF;
+        int traceRate = 100;
+        SolverMode solverMode = SolverMode.AUTO;
+        int closedEntries = 0;
+        long closedMemory = 0;
+        TranspositionTable.Policy closedPolicy = TranspositionTable.Policy.CLOCK;
+        Long seed = null;
+        String cacheDir = null;
+        ArrayList<String> levelFiles = new ArrayList<>();
+        int firstLevel = 1;
+        int lastLevel = Integer.MAX_VALUE;
+        String convertTo = null;
+        boolean packHeights = false;
+        String generateTo = null;
+        int generateCount = 10;
+        int generateSize = 14;
+        double generateWalls = 0.2;
+        int gifDelay = 0;
+        int servePort = -1;
+        int clientPort = -1;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int queueLimit = 64;
+        long timeoutMillis = 10_000;
+        int requests = 100;
+        int concurrency = 4;
+        long deadline = 0;
+        long maxExpansions = 0;
+        double weight = 3.0;
+        String checkpointDir = null;
+        boolean selfCheck = false;
+        long checkpointEvery = 60_000;
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                // Level files, each holding one or more levels separated by blank lines
+                levelFiles.add(arg);
+            } else if (arg.equals("--self-check")) {
+                selfCheck = true;
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.equals("--batch")) {
+                batch = Runtime.getRuntime().availableProcessors();
+            } else if (arg.startsWith("--batch=")) {
+                batch = Integer.parseInt(arg.substring("--batch=".length()));
+            } else if (arg.startsWith("--writers=")) {
+                writers = Integer.parseInt(arg.substring("--writers=".length()));
+            } else if (arg.startsWith("--trace=")) {
+                trace = Integer.parseInt(arg.substring("--trace=".length()));
+            } else if (arg.startsWith("--trace-rate=")) {
+                traceRate = Integer.parseInt(arg.substring("--trace-rate=".length()));
+            } else if (arg.startsWith("--solver=")) {
+                solverMode = SolverMode.valueOf(arg.substring("--solver=".length()).toUpperCase());
+            } else if (arg.startsWith("--deadline=")) {
+                // Milliseconds per level for --solver=anytime
+                deadline = Long.parseLong(arg.substring("--deadline=".length()));
+            } else if (arg.startsWith("--max-expansions=")) {
+                maxExpansions = Long.parseLong(arg.substring("--max-expansions=".length()));
+            } else if (arg.startsWith("--weight=")) {
+                weight = Double.parseDouble(arg.substring("--weight=".length()));
+            } else if (arg.equals("--checkpoint")) {
+                checkpointDir = "checkpoints";
+            } else if (arg.startsWith("--checkpoint=")) {
+                checkpointDir = arg.substring("--checkpoint=".length());
+            } else if (arg.startsWith("--checkpoint-every=")) {
+                // In seconds
+                checkpointEvery = Long.parseLong(arg.substring("--checkpoint-every=".length())) * 1000;
+            } else if (arg.startsWith("--closed-entries=")) {
+                closedEntries = Integer.parseInt(arg.substring("--closed-entries=".length()));
+            } else if (arg.startsWith("--closed-memory=")) {
+                // In megabytes
+                closedMemory = Long.parseLong(arg.substring("--closed-memory=".length())) << 20;
+            } else if (arg.startsWith("--closed-policy=")) {
+                String policy = arg.substring("--closed-policy=".length());
+                closedPolicy = policy.equalsIgnoreCase("depth")
+                        ? TranspositionTable.Policy.DEPTH_PREFERRED
+                        : TranspositionTable.Policy.valueOf(policy.toUpperCase());
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--levels=")) {
+                // A single level N, or a range FROM-TO
+                String[] range = arg.substring("--levels=".length()).split("-");
+                firstLevel = Integer.parseInt(range[0]);
+                lastLevel = range.length > 1 ? Integer.parseInt(range[1]) : firstLevel;
+            } else if (arg.startsWith("--convert=")) {
+                convertTo = arg.substring("--convert=".length());
+            } else if (arg.startsWith("--generate=")) {
+                generateTo = arg.substring("--generate=".length());
+            } else if (arg.startsWith("--count=")) {
+                generateCount = Integer.parseInt(arg.substring("--count=".length()));
+            } else if (arg.startsWith("--size=")) {
+                generateSize = Integer.parseInt(arg.substring("--size=".length()));
+            } else if (arg.equals("--gif")) {
+                gifDelay = 200;
+            } else if (arg.startsWith("--gif=")) {
+                // Milliseconds per frame
+                gifDelay = Integer.parseInt(arg.substring("--gif=".length()));
+            } else if (arg.startsWith("--walls=")) {
+                generateWalls = Double.parseDouble(arg.substring("--walls=".length()));
+            } else if (arg.equals("--pack-heights")) {
+                packHeights = true;
+            } else if (arg.equals("--cache")) {
+                cacheDir = "solution-cache";
+            } else if (arg.startsWith("--cache=")) {
+                cacheDir = arg.substring("--cache=".length());
+            } else if (arg.startsWith("--serve=")) {
+                servePort = Integer.parseInt(arg.substring("--serve=".length()));
+            } else if (arg.startsWith("--workers=")) {
+                workers = Integer.parseInt(arg.substring("--workers=".length()));
+            } else if (arg.startsWith("--queue=")) {
+                queueLimit = Integer.parseInt(arg.substring("--queue=".length()));
+            } else if (arg.startsWith("--timeout=")) {
+                // Milliseconds per request, time spent queued included
+                timeoutMillis = Long.parseLong(arg.substring("--timeout=".length()));
+            } else if (arg.startsWith("--client=")) {
+                clientPort = Integer.parseInt(arg.substring("--client=".length()));
+            } else if (arg.startsWith("--requests=")) {
+                requests = Integer.parseInt(arg.substring("--requests=".length()));
+            } else if (arg.startsWith("--concurrency=")) {
+                concurrency = Integer.parseInt(arg.substring("--concurrency=".length()));
+            }
+        }
+        if (cacheDir != null && seed == null) {
+            System.out.println("--cache only works together with --seed, solutions will not be cached");
+            cacheDir = null;
+        }
+        if (checkpointDir != null && seed == null) {
+            System.out.println("--checkpoint only works together with --seed, searches will not be checkpointed");
+            checkpointDir = null;
+        }
+
+        // Settings applied to every level, sequential or batch
+        final int searchThreads = threads;
+        final int traceVerbosity = trace;
+        final int traceLimit = traceRate;
+        final SolverMode mode = solverMode;
+        final int closedSetEntries = closedEntries;
+        final long closedSetBytes = closedMemory;
+        final TranspositionTable.Policy closedSetPolicy = closedPolicy;
+        final int animationDelay = gifDelay;
+        final long anytimeDeadline = deadline;
+        final long anytimeExpansions = maxExpansions;
+        final double anytimeWeight = weight;
+        final SolutionCache solutionCache = cacheDir != null ? new SolutionCache(cacheDir) : null;
+        final String checkpointDirectory = checkpointDir;
+        final long checkpointInterval = checkpointEvery;
+        Consumer<PathBlocker> configure = game -> {
+            game.setThreads(searchThreads);
+            game.setTrace(traceVerbosity, traceLimit);
+            game.setSolverMode(mode);
+            if (closedSetEntries > 0) {
+                game.setClosedSetEntries(closedSetEntries, closedSetPolicy);
+            } else if (closedSetBytes > 0) {
+                game.setClosedSetMemory(closedSetBytes, closedSetPolicy);
+            }
+            game.setSolutionCache(solutionCache);
+            game.setAnimatedOutput(animationDelay);
+            game.setAnytimeBudget(anytimeDeadline, anytimeExpansions, anytimeWeight);
+            if (checkpointDirectory != null) {
+                game.setCheckpoint(checkpointDirectory, checkpointInterval);
+            }
+        };
+
+        if (selfCheck) {
+            System.exit(new SelfCheck(System.out).run());
+        }
+
+        if (servePort >= 0) {
+            try {
+                SolverServer server = new SolverServer(servePort, workers, queueLimit, timeoutMillis);
+                server.start();
+                System.out.println("Solver server listening on localhost:" + server.getPort() + " (" + workers
+                        + " workers, queue " + queueLimit + ", timeout " + timeoutMillis + " ms)");
+            } catch (IOException e) {
+                System.out.println("Could not start the solver server: " + e.getMessage());
+            }
+            return;
+        }
+
+        if (generateTo != null) {
+            generatePack(generateTo, generateCount, generateSize, generateWalls, seed != null ? seed : new Random().nextLong());
+            return;
+        }
+
         String[] filePaths = {
                 "level1.txt", "level2.txt", "level3.txt", "level4.txt", "level5.txt",
                 "level6.txt", "level7.txt", "level8.txt", "level9.txt", "level10.txt"
         };
+        if (!levelFiles.isEmpty()) {
+            filePaths = levelFiles.toArray(new String[0]);
+        }
 
-        ArrayList<ChartMap> maps = ChartMap.readMaps(filePaths);
+        // Levels are read one at a time, as they are played
+        Iterator<ChartMap> maps = new LevelSequence(filePaths, firstLevel, lastLevel);
 
-        for (int i = 0; i < maps.size(); i++) {
-            String levelFolder = String.format("level%02d", i + 1);
-            System.out.println("\nStarting Level " + (i + 1));
-            ChartMap map = maps.get(i);
-            PathBlocker game = new PathBlocker(map, levelFolder);
-            game.play();
+        if (convertTo != null) {
+            convertToPack(maps, convertTo, firstLevel, seed, packHeights);
+            return;
+        }
 
-            if (i == maps.size() - 1) {
-                System.out.println("Game completed! All levels finished!");
+        if (clientPort >= 0) {
+            String query = "timeout=" + timeoutMillis + "&solver=" + solverMode.name().toLowerCase();
+            try {
+                new SolverClient(clientPort).run(maps, firstLevel, seed, requests, concurrency, query);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+            return;
+        }
+
+        FrameWriter frameWriter = new FrameWriter(writers, 64);
+
+        if (batch > 0) {
+            // Solve several levels side by side, output is still printed in level order
+            BatchRunner runner = seed != null
+                    ? new BatchRunner(batch, frameWriter, configure, seed)
+                    : new BatchRunner(batch, frameWriter, configure);
+            int failed = runner.run(maps, firstLevel);
+            frameWriter.close();
+            System.out.println(failed == 0
+                    ? "Game completed! All levels finished!"
+                    : "Game completed, but " + failed + " level(s) failed.");
+            return;
         }
+
+        for (int level = firstLevel; maps.hasNext(); level++) {
+            String levelFolder = String.format("level%02d", level);
+            System.out.println("\nStarting Level " + level);
+            ChartMap map = maps.next();
+            PathBlocker game = seed != null
+                    ? new PathBlocker(map, levelFolder, System.out, frameWriter, levelSeed(seed, level))
+                    : new PathBlocker(map, levelFolder, System.out, frameWriter);
+            configure.accept(game);
+            game.play();
+        }
+        frameWriter.close();
+        System.out.println("Game completed! All levels finished!");
     }
 
     /*
@@ -330,7 +821,19 @@ class PathBlocker {
 
     public void saveMapWithElevation(String fileName) {
         map.setElevation(elevation);
-        map.saveAsPng(fileName);
+        if (animationDelay > 0) {
+            if (recorder != null) {
+                try {
+                    recorder.addFrame(map);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        } else if (frameWriter != null) {
+            frameWriter.submit(map, elevation, fileName);
+        } else {
+            map.saveAsPng(fileName);
+        }
     }
 
 }
@@ -4,19 +4,43 @@ public class Scene {
     public final int size;
     private final int[][] elevations;
     private static Random rand = new Random();
+    private final Random random;
 
     public Scene(int size) {
         this.size = validSize(size);
         this.elevations = createElevationGrid(size);
+        this.random = rand;
     }
 
     public Scene(int size, int pyramidCount) {
+        this(size, pyramidCount, rand);
+    }
+
+    // Same seed, size and pyramid count always give the same scene
+    public Scene(int size, int pyramidCount, long seed) {
+        this(size, pyramidCount, new Random(seed));
+    }
+
+    // A scene with the given heights, rows first
+    public Scene(int[][] elevations) {
+        this.size = elevations.length;
+        this.elevations = elevations;
+        this.random = rand;
+    }
+
+    private Scene(int size, int pyramidCount, Random random) {
         this.size = validSize(size);
         this.elevations = createElevationGrid(size);
+        this.random = random;
 
         generatePyramids(pyramidCount);
     }
 
+    // The heights themselves, rows first; not a copy
+    int[][] getElevations() {
+        return elevations;
+    }
+
     public int getElevation(int x, int y) {
         if (x >= 0 && x < size && y >= 0 && y < size)
             return elevations[y][x];
@@ -49,8 +73,8 @@ public class Scene {
         int top_level = 9;
 
         for (int i = 0; i < pyramidCount; i++) {
-            int x_center = rand.nextInt(r2 - r1) + r1;
-            int y_center = rand.nextInt(r2 - r1) + r1;
+            int x_center = random.nextInt(r2 - r1) + r1;
+            int y_center = random.nextInt(r2 - r1) + r1;
 
             for (int y = 0; y < elevations.length; y++) {
                 int[] row = elevations[y];
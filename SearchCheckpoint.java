@@ -0,0 +1,346 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Saves a running A* search to a file and picks it up again in a later
+ * process, so a long search survives a restart. The file holds the search
+ * tree down to the open states, the closed set and nothing else; a
+ * resumed search pops the same states in the same order and ends with the
+ * same solution as one that was never stopped.
+ *
+ * Saving is split in two. On the search thread, the open list and the
+ * closed set are copied into arrays, which costs a pass over memory and no
+ * more. States never change once built, so a background thread can then
+ * number the states, encode and write them while the search goes on. A
+ * save that comes while the previous one is still being written is put
+ * off to the next check, it never waits for it.
+ *
+ * A state in the file is its parent's number and one move, and is rebuilt
+ * by replaying that move, so walls and hashes are not stored. Numbers are
+ * written as the distance back to the parent, in a variable-length code.
+ * The file is written to a temporary name and moved into place, so a kill
+ * during a write leaves the previous checkpoint. The header names the level
+ * by its size, target, start state, elevation seed and pyramid count, so
+ * only a seeded elevation can be checkpointed.
+ *
+ * Checkpoints are saved every interval and, through a shutdown hook, when
+ * the process is asked to stop (SIGTERM, SIGINT) during a search.
+ */
+class SearchCheckpoint {
+    private static final int MAGIC = 0x50424350; // "PBCP"
+    private static final int VERSION = 2;
+    // How long the shutdown hook waits for the last checkpoint to be written
+    private static final long EXIT_WAIT_MILLIS = 10_000;
+
+    private static final Set<SearchCheckpoint> searching = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SearchCheckpoint::saveSearching, "checkpoint-on-exit"));
+    }
+
+    private final Path file;
+    private final long intervalNanos;
+    private final PrintStream out;
+    private long nextSave;
+    private volatile boolean requested;
+    private volatile boolean writing;
+    // Saves handed to the writer and saves it has finished, guarded by this
+    private long saves;
+    private long written;
+
+    // intervalMillis of 0 only saves on request and at exit
+    public SearchCheckpoint(Path file, long intervalMillis, PrintStream out) {
+        this.file = file;
+        this.intervalNanos = intervalMillis > 0 ? intervalMillis * 1_000_000 : Long.MAX_VALUE;
+        this.out = out;
+    }
+
+    // Asks the search to save at its next check; safe to call from any thread
+    public void request() {
+        requested = true;
+    }
+
+    // Called by the search once it has its open list and closed set
+    public void begin() {
+        nextSave = System.nanoTime() + intervalNanos;
+        searching.add(this);
+    }
+
+    // Called when the search stops; a search that ran to its end has no use for its checkpoint any more,
+    // one that was stopped has its last checkpoint complete on disk when this returns
+    public void end(boolean finished) {
+        searching.remove(this);
+        synchronized (this) {
+            notifyAll();
+        }
+        // A write still under way would put the file back after it is deleted, or be cut off by the exit
+        awaitWrites();
+        if (finished) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                out.println("Could not delete checkpoint " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void awaitWrites() {
+        boolean interrupted = false;
+        while (written < saves) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isDue() {
+        return !writing && (requested || System.nanoTime() - nextSave >= 0);
+    }
+
+    // Copies the search and hands the copy to a writer thread
+    public void save(Board board, Elevation elevation, GameState start, BucketQueue openSet, ClosedSet closed,
+            boolean verify) {
+        GameState[] open = openSet.toArray();
+        ClosedSet.Entries entries = closed.entries();
+        requested = false;
+        nextSave = System.nanoTime() + intervalNanos;
+        writing = true;
+        synchronized (this) {
+            saves++;
+        }
+        Thread writer = new Thread(() -> write(board, elevation, start, open, entries, verify), "checkpoint-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /*
+     * Loads a checkpoint of this level into an empty open list and closed set.
+     * Returns false, with the search left untouched, if there is no
+     * checkpoint or it was written for another level or other settings.
+     */
+    public boolean restore(Solver solver, GameState start, BucketQueue openSet, ClosedSet closed) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            Board board = solver.board;
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a checkpoint of this version");
+            }
+            if (in.readInt() != board.getWidth() || in.readInt() != board.getHeight()
+                    || in.readInt() != board.index(board.getTargetX(), board.getTargetY())
+                    || in.readLong() != start.getHash()) {
+                throw new IOException("written for another level");
+            }
+            long seed = in.readLong();
+            int pyramidCount = in.readInt();
+            if (seed != solver.elevation.getSeed() || pyramidCount != solver.elevation.getPyramidCount()) {
+                throw new IOException("written for elevation seed " + seed + " with " + pyramidCount + " pyramids");
+            }
+            if (in.readBoolean() != solver.verifyHashCollisions) {
+                throw new IOException("written with hash verification " + (solver.verifyHashCollisions ? "off" : "on"));
+            }
+
+            GameState[] nodes = new GameState[in.readInt()];
+            nodes[0] = start;
+            for (int i = 1; i < nodes.length; i++) {
+                int parent = i - readNumber(in);
+                int direction = in.readByte();
+                nodes[i] = parent < 0 || parent >= i || direction < 0 || direction > 3
+                        ? null : solver.simulateMove(nodes[parent], direction);
+                if (nodes[i] == null) {
+                    throw new IOException("its moves do not play out on this level");
+                }
+            }
+            GameState[] open = new GameState[in.readInt()];
+            for (int i = 0; i < open.length; i++) {
+                open[i] = nodes[readNumber(in)];
+                if (open[i].getTotalCost() != readNumber(in)) {
+                    throw new IOException("written for other heights");
+                }
+            }
+            int closedCount = in.readInt();
+            long[] keys = new long[closedCount];
+            int[] costs = new int[closedCount];
+            GameState[] states = solver.verifyHashCollisions ? new GameState[closedCount] : null;
+            for (int i = 0; i < closedCount; i++) {
+                keys[i] = in.readLong();
+                costs[i] = readNumber(in);
+                if (states != null) {
+                    states[i] = nodes[readNumber(in)];
+                    if (states[i].getTotalCost() != costs[i]) {
+                        throw new IOException("written for other heights");
+                    }
+                }
+            }
+
+            for (GameState state : open) {
+                openSet.add(state);
+            }
+            for (int i = 0; i < closedCount; i++) {
+                closed.restore(keys[i], costs[i], states != null ? states[i] : null);
+            }
+            out.println("Resuming from checkpoint " + file + ": " + open.length + " open, " + closedCount
+                    + " closed");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            String reason = e instanceof EOFException ? "it is cut short" : e.getMessage();
+            out.println("Ignoring checkpoint " + file + ", " + reason);
+            return false;
+        }
+    }
+
+    private void write(Board board, Elevation elevation, GameState start, GameState[] open,
+            ClosedSet.Entries entries, boolean verify) {
+        try {
+            // Number every state on the way to an open (or, verifying, closed) state, parents first
+            IdentityHashMap<GameState, Integer> numbers = new IdentityHashMap<>();
+            ArrayList<GameState> nodes = new ArrayList<>();
+            numbers.put(start, 0);
+            nodes.add(start);
+            ArrayDeque<GameState> path = new ArrayDeque<>();
+            for (GameState state : open) {
+                number(state, numbers, nodes, path);
+            }
+            int closedCount = 0;
+            for (int i = 0; i < entries.keys.length; i++) {
+                if (entries.keys[i] != 0) {
+                    closedCount++;
+                    if (verify) {
+                        number(entries.states[i], numbers, nodes, path);
+                    }
+                }
+            }
+
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                data.writeInt(board.getWidth());
+                data.writeInt(board.getHeight());
+                data.writeInt(board.index(board.getTargetX(), board.getTargetY()));
+                data.writeLong(start.getHash());
+                data.writeLong(elevation.getSeed());
+                data.writeInt(elevation.getPyramidCount());
+                data.writeBoolean(verify);
+
+                data.writeInt(nodes.size());
+                for (int i = 1; i < nodes.size(); i++) {
+                    GameState node = nodes.get(i);
+                    writeNumber(data, i - numbers.get((GameState) node.getParent()));
+                    data.writeByte(node.getDirection());
+                }
+                data.writeInt(open.length);
+                for (GameState state : open) {
+                    writeNumber(data, numbers.get(state));
+                    writeNumber(data, state.getTotalCost());
+                }
+                data.writeInt(closedCount);
+                for (int i = 0; i < entries.keys.length; i++) {
+                    if (entries.keys[i] == 0) {
+                        continue;
+                    }
+                    data.writeLong(entries.keys[i]);
+                    writeNumber(data, entries.costs[i]);
+                    if (verify) {
+                        writeNumber(data, numbers.get(entries.states[i]));
+                    }
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            out.println("Checkpoint " + file + " written: " + open.length + " open, " + closedCount + " closed, "
+                    + Files.size(file) / 1024 + " KB");
+        } catch (IOException e) {
+            // The search goes on either way, only a restart would lose more work
+            out.println("Could not write checkpoint " + file + ": " + e.getMessage());
+        } finally {
+            writing = false;
+            synchronized (this) {
+                written++;
+                notifyAll();
+            }
+        }
+    }
+
+    private static void number(GameState state, IdentityHashMap<GameState, Integer> numbers,
+            ArrayList<GameState> nodes, ArrayDeque<GameState> path) {
+        for (GameState s = state; !numbers.containsKey(s); s = (GameState) s.getParent()) {
+            path.push(s);
+        }
+        while (!path.isEmpty()) {
+            GameState s = path.pop();
+            numbers.put(s, nodes.size());
+            nodes.add(s);
+        }
+    }
+
+    // Unsigned LEB128: 7 bits a byte, low bits first, high bit set on all but the last byte
+    private static void writeNumber(DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            data.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    private static int readNumber(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("bad number");
+    }
+
+    // Shutdown hook: every search still running saves once more before the process ends
+    private static void saveSearching() {
+        for (SearchCheckpoint checkpoint : searching) {
+            checkpoint.saveBeforeExit();
+        }
+    }
+
+    private synchronized void saveBeforeExit() {
+        // The save after the one being written now, if any, is the one that starts after this request
+        long target = saves + 1;
+        request();
+        long deadline = System.currentTimeMillis() + EXIT_WAIT_MILLIS;
+        try {
+            while (written < target && searching.contains(this)) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    break;
+                }
+                wait(left);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
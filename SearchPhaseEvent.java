@@ -0,0 +1,21 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("pathblocker.SearchPhase")
+@Label("Search Phase")
+@Category({ "PathBlocker", "Solver" })
+@Description("One phase (setup, elevation, search or render) of solving a level")
+class SearchPhaseEvent extends jdk.jfr.Event {
+    @Label("Level")
+    String level;
+
+    @Label("Phase")
+    String phase;
+
+    SearchPhaseEvent(String level, String phase) {
+        this.level = level;
+        this.phase = phase;
+    }
+}
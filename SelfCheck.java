@@ -0,0 +1,279 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Consistency checks between parts of the game that must agree, run with
+ * --self-check (and by `gradle check`). Each check compares a fast or
+ * generated result against a plain reference on a fixed set of seeds, so a
+ * run always covers the same cases, and prints one line with what it
+ * covered. The process exit code is the number of failed checks.
+ */
+class SelfCheck {
+    private final PrintStream out;
+    private int failures;
+
+    SelfCheck(PrintStream out) {
+        this.out = out;
+    }
+
+    // Runs every check and returns the number of cases that failed
+    public int run() {
+        generatorHeights();
+        generatedLayoutsSolve();
+        incrementalMatchesAStar();
+        checkpointsResume();
+        solversAgree();
+        out.println(failures == 0 ? "All checks passed." : failures + " check(s) failed.");
+        return failures;
+    }
+
+    // LevelGenerator.heights must give Scene's field for every size Scene supports
+    private void generatorHeights() {
+        int cases = 0;
+        for (int size = 8; size <= 60; size++) {
+            for (long seed = 0; seed < 20; seed++) {
+                int pyramids = 1 + (int) ((size + seed) % 8);
+                int[][] expected = new Scene(size, pyramids, seed).getElevations();
+                if (!Arrays.deepEquals(expected, LevelGenerator.heights(size, pyramids, seed))) {
+                    fail("generator heights differ from Scene for size " + size + ", seed " + seed
+                            + ", " + pyramids + " pyramids");
+                }
+                cases++;
+            }
+        }
+        out.println("generator heights: " + cases + " sizes and seeds match Scene");
+    }
+
+    // Every generated layout keeps the game it was played from as a solution
+    private void generatedLayoutsSolve() {
+        int cases = 0;
+        for (long seed = 0; seed < 300; seed++) {
+            int size = 8 + (int) (seed % 25);
+            double walls = 0.1 + 0.1 * (seed % 3);
+            LevelGrid grid = LevelGenerator.layout(size, size, 4 * size, walls, seed);
+            Board board = new Board(grid.toValues());
+            Solver solver = new AStarSolver(board, LevelGenerator.elevation(size, PathBlocker.PYRAMIDS, seed));
+            if (solver.solve(new GameState(board, playerIndex(grid, board), board.copyInitialWalls())) == null) {
+                fail("generated layout " + size + "x" + size + ", walls " + walls + ", seed " + seed
+                        + " has no solution");
+            }
+            cases++;
+        }
+        out.println("generated layouts: " + cases + " layouts solved by A*");
+    }
+
+    // After every edit, IncrementalSolver finds the cost a fresh A* finds on the edited level
+    private void incrementalMatchesAStar() {
+        int cases = 0;
+        for (long seed = 0; seed < 60; seed++) {
+            int size = 8 + (int) (seed % 13);
+            ArrayList<ArrayList<Integer>> values = LevelGenerator.layout(size, size, 4 * size, 0.2, seed).toValues();
+            Elevation elevation = new Elevation(size, PathBlocker.PYRAMIDS, seed, null);
+            IncrementalSolver incremental = new IncrementalSolver(values, elevation);
+            incremental.solve();
+            Random random = new Random(seed);
+            for (int edit = 0; edit < 15; edit++) {
+                int x = random.nextInt(size);
+                int y = random.nextInt(size);
+                int cell = values.get(y).get(x);
+                int kind = random.nextInt(8);
+                if (kind == 0) {
+                    elevation = new Elevation(size, PathBlocker.PYRAMIDS, random.nextLong(), null);
+                    incremental.setElevation(elevation);
+                } else if (cell == 2 || cell == 3) {
+                    continue;
+                } else if (kind == 1) {
+                    // Move the target here
+                    setCell(values, incremental, targetX(values), targetY(values), 0);
+                    setCell(values, incremental, x, y, 2);
+                } else {
+                    setCell(values, incremental, x, y, cell == 1 ? 0 : 1);
+                }
+                GameState goal = incremental.solve();
+                Board board = new Board(values);
+                GameState expected = new AStarSolver(board, elevation)
+                        .solve(new GameState(board, playerIndex(values, board), board.copyInitialWalls()));
+                int cost = goal != null ? goal.getTotalCost() : -1;
+                int expectedCost = expected != null ? expected.getTotalCost() : -1;
+                if (cost != expectedCost) {
+                    fail("incremental solver gives cost " + cost + " instead of " + expectedCost + " on level "
+                            + seed + " after edit " + edit);
+                }
+                cases++;
+            }
+        }
+        out.println("incremental solver: " + cases + " edits re-solved to the cost of a fresh A*");
+    }
+
+    // A search saved after a few expansions and resumed from the file ends with the moves of one never stopped
+    private void checkpointsResume() {
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        Path file;
+        try {
+            file = Files.createTempFile("self-check", ".ckpt");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int cases = 0;
+        try {
+            for (long seed = 0; seed < 10; seed++) {
+                int size = 12 + 2 * (int) seed;
+                LevelGrid grid = LevelGenerator.layout(size, size, 4 * size, 0.2, seed);
+                Board board = new Board(grid.toValues());
+                Elevation elevation = LevelGenerator.elevation(size, PathBlocker.PYRAMIDS, seed);
+                GameState start = new GameState(board, playerIndex(grid, board), board.copyInitialWalls());
+                for (int config = 0; config < 4; config++) {
+                    GameState expected = checkpointSolver(board, elevation, config).solve(start);
+                    for (int stop : new int[] { 1, 5, 20, 60 }) {
+                        Files.deleteIfExists(file);
+                        AStarSolver first = checkpointSolver(board, elevation, config);
+                        SearchCheckpoint saveOnce = new SearchCheckpoint(file, 0, quiet) {
+                            @Override
+                            public void save(Board board, Elevation elevation, GameState start, BucketQueue openSet,
+                                    ClosedSet closed, boolean verify) {
+                                super.save(board, elevation, start, openSet, closed, verify);
+                                first.cancel();
+                            }
+                        };
+                        saveOnce.request();
+                        first.setCheckpoint(saveOnce);
+                        first.setCheckpointCheck(stop);
+                        if (first.solve(start) != null) {
+                            // Solved before the save
+                            continue;
+                        }
+                        AStarSolver resumed = checkpointSolver(board, elevation, config);
+                        resumed.setCheckpoint(new SearchCheckpoint(file, 0, quiet));
+                        GameState goal = resumed.solve(start);
+                        if (goal == null || expected == null || !goal.getMoves().equals(expected.getMoves())) {
+                            fail("search on layout " + size + "x" + size + ", seed " + seed + ", config " + config
+                                    + " resumed after " + stop + " expansions ends with other moves");
+                        }
+                        cases++;
+                    }
+                }
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.println("checkpoints: " + cases + " searches resumed to the same moves");
+    }
+
+    // Every other engine finds A*'s cost on generated layouts, with moves that play out to it
+    private void solversAgree() {
+        String[] names = { "IDA*", "parallel A*", "arena A*", "anytime", "A* with a CLOCK table",
+                "A* with a depth-preferred table" };
+        int cases = 0;
+        for (long seed = 0; seed < 200; seed++) {
+            int size = 8 + (int) (seed % 13);
+            double walls = 0.1 + 0.1 * (seed % 3);
+            LevelGrid grid = LevelGenerator.layout(size, size, 4 * size, walls, seed);
+            Board board = new Board(grid.toValues());
+            Elevation elevation = LevelGenerator.elevation(size, PathBlocker.PYRAMIDS, seed);
+            GameState start = new GameState(board, playerIndex(grid, board), board.copyInitialWalls());
+            AStarSolver reference = new AStarSolver(board, elevation);
+            GameState expected = reference.solve(start);
+            for (int engine = 0; engine < names.length; engine++) {
+                Solver solver = switch (engine) {
+                    case 0 -> new IdaStarSolver(board, elevation);
+                    case 1 -> new ParallelAStarSolver(board, elevation, 2);
+                    case 2 -> new ArenaAStarSolver(board, elevation);
+                    case 3 -> new AnytimeSolver(board, elevation);
+                    default -> new AStarSolver(board, elevation);
+                };
+                if (engine >= 4) {
+                    solver.setClosedSetLimit(64, engine == 4
+                            ? TranspositionTable.Policy.CLOCK : TranspositionTable.Policy.DEPTH_PREFERRED);
+                }
+                GameState goal = solver.solve(start);
+                String level = " on layout " + size + "x" + size + ", seed " + seed;
+                if ((goal == null) != (expected == null)) {
+                    fail(names[engine] + (goal == null ? " finds no solution" : " finds a solution A* does not")
+                            + level);
+                } else if (goal != null && goal.getTotalCost() != expected.getTotalCost()) {
+                    fail(names[engine] + " gives cost " + goal.getTotalCost() + " instead of "
+                            + expected.getTotalCost() + level);
+                } else if (goal != null && !playsOut(reference, start, goal)) {
+                    fail(names[engine] + " gives moves that do not reach the target at their cost" + level);
+                }
+                cases++;
+            }
+        }
+        out.println("solvers: " + cases + " solves by " + names.length + " other engines agree with A*");
+    }
+
+    // Whether the goal's moves, replayed from the start, end on the target at the goal's cost
+    private static boolean playsOut(Solver rules, GameState start, GameState goal) {
+        GameState state = start;
+        for (String move : goal.getMoves()) {
+            state = rules.simulateMove(state, "WASD".indexOf(move));
+            if (state == null) {
+                return false;
+            }
+        }
+        return rules.isGoal(state) && state.getTotalCost() == goal.getTotalCost();
+    }
+
+    // Hash verification off and on, each with every state kept and with a small capped table
+    private static AStarSolver checkpointSolver(Board board, Elevation elevation, int config) {
+        AStarSolver solver = new AStarSolver(board, elevation);
+        solver.setVerifyHashCollisions(config % 2 == 1);
+        if (config >= 2) {
+            solver.setClosedSetLimit(256, TranspositionTable.Policy.CLOCK);
+        }
+        return solver;
+    }
+
+    private static void setCell(ArrayList<ArrayList<Integer>> values, IncrementalSolver incremental, int x, int y,
+            int value) {
+        values.get(y).set(x, value);
+        incremental.setCell(x, y, value);
+    }
+
+    private static int targetX(ArrayList<ArrayList<Integer>> values) {
+        return values.get(targetY(values)).indexOf(2);
+    }
+
+    private static int targetY(ArrayList<ArrayList<Integer>> values) {
+        for (int y = 0; y < values.size(); y++) {
+            if (values.get(y).contains(2)) { // 2 -> target
+                return y;
+            }
+        }
+        throw new IllegalStateException("Level has no target");
+    }
+
+    private static int playerIndex(ArrayList<ArrayList<Integer>> values, Board board) {
+        for (int y = 0; y < values.size(); y++) {
+            int x = values.get(y).indexOf(3); // 3 -> player
+            if (x >= 0) {
+                return board.index(x, y);
+            }
+        }
+        throw new IllegalStateException("Level has no player");
+    }
+
+    private static int playerIndex(LevelGrid grid, Board board) {
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                if (grid.get(x, y) == 3) { // 3 -> player
+                    return board.index(x, y);
+                }
+            }
+        }
+        throw new IllegalStateException("Level has no player");
+    }
+
+    private void fail(String message) {
+        failures++;
+        out.println("FAILED: " + message);
+    }
+}
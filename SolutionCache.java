@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solutions of earlier runs, one small text file per level in a directory.
+ * A level is identified by a SHA-256 of its grid together with the seed and
+ * pyramid count of its elevation, which is everything the optimal cost
+ * depends on; only levels with a seeded elevation can be cached.
+ *
+ * Files are written to a temporary name and moved into place, so levels
+ * solved side by side, or a run that is killed halfway, never leave a
+ * partial entry behind. A file that cannot be read is treated as a miss.
+ */
+class SolutionCache {
+    // Bump when the file format or the cost model changes
+    private static final int VERSION = 1;
+
+    private final Path directory;
+
+    public SolutionCache(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    static class Entry {
+        final int cost;
+        final ArrayList<String> moves;
+
+        Entry(int cost, ArrayList<String> moves) {
+            this.cost = cost;
+            this.moves = moves;
+        }
+    }
+
+    public static String key(ArrayList<ArrayList<Integer>> grid, long seed, int pyramidCount) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(VERSION).append(' ').append(seed).append(' ').append(pyramidCount).append('\n');
+        for (ArrayList<Integer> row : grid) {
+            for (int value : row) {
+                text.append((char) ('0' + value));
+            }
+            text.append('\n');
+        }
+        byte[] hash = digest.digest(text.toString().getBytes(StandardCharsets.US_ASCII));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    // The stored solution, or null if there is none
+    public Entry get(String key) {
+        Path file = directory.resolve(key + ".txt");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.US_ASCII);
+            if (lines.size() < 2) {
+                return null;
+            }
+            int cost = Integer.parseInt(lines.get(0).trim());
+            ArrayList<String> moves = new ArrayList<>();
+            for (char c : lines.get(1).trim().toCharArray()) {
+                moves.add(String.valueOf(c));
+            }
+            return new Entry(cost, moves);
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public void put(String key, int cost, List<String> moves) {
+        StringBuilder text = new StringBuilder();
+        text.append(cost).append('\n');
+        for (String move : moves) {
+            text.append(move);
+        }
+        text.append('\n');
+
+        Path temp = null;
+        boolean moved = false;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, text.toString().getBytes(StandardCharsets.US_ASCII));
+            Path file = directory.resolve(key + ".txt");
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } catch (IOException e) {
+            // The cache is only a shortcut, a failed write just means solving again next time
+            System.err.println("Could not write solution cache entry " + key + ": " + e.getMessage());
+        } finally {
+            if (temp != null && !moved) {
+                // Leave no half-written entries behind in the cache directory
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    System.err.println("Could not delete " + temp + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
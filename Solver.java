@@ -0,0 +1,157 @@
+/**
+ * Base class for the search engines. Holds the level data every engine needs
+ * and the move rules shared by all of them, so that A* variants only differ
+ * in how they order and store states.
+ */
+abstract class Solver {
+    // Move vectors in State.DIRECTIONS order (W, A, S, D)
+    protected static final int[] DIR_X = { 0, -1, 0, 1 };
+    protected static final int[] DIR_Y = { -1, 0, 1, 0 };
+
+    protected final Board board;
+    protected final Elevation elevation;
+    protected final int targetX;
+    protected final int targetY;
+    protected final HeuristicTable costToTarget;
+    protected boolean verifyHashCollisions = false;
+    protected boolean pruneDeadStates = true;
+    protected int closedSetLimit = 0;
+    protected TranspositionTable.Policy closedSetPolicy = TranspositionTable.Policy.CLOCK;
+    protected SolverMetrics metrics = new SolverMetrics("");
+    protected Trace trace = Trace.off();
+    private volatile boolean cancelled = false;
+
+    public Solver(Board board, Elevation elevation) {
+        this.board = board;
+        this.elevation = elevation;
+        this.targetX = board.getTargetX();
+        this.targetY = board.getTargetY();
+        this.costToTarget = new HeuristicTable(board, elevation);
+    }
+
+    // Returns the goal state of a solution, or null if there is none
+    public abstract GameState solve(GameState initialState);
+
+    // Whether the last solution is proven optimal; only budgeted engines can return one that is not
+    public boolean isSolutionOptimal() {
+        return true;
+    }
+
+    // Proven bound on cost / optimal cost of the last solution; 1 when it is optimal
+    public double getBound() {
+        return 1.0;
+    }
+
+    // Whether the last solve() stopped on its budget before searching everything; a null result
+    // then means no solution was found in time, not that there is none
+    public boolean isExhausted() {
+        return false;
+    }
+
+    // Makes a running solve() give up and return null; safe to call from any thread
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Keeps the full states in the closed set and compares them on hash matches
+    public void setVerifyHashCollisions(boolean verifyHashCollisions) {
+        this.verifyHashCollisions = verifyHashCollisions;
+    }
+
+    // Caps the closed set at maxEntries states (0 for no cap), evicting with the given policy
+    public void setClosedSetLimit(int maxEntries, TranspositionTable.Policy policy) {
+        this.closedSetLimit = maxEntries;
+        this.closedSetPolicy = policy;
+    }
+
+    // A closed set for one of parts searchers sharing the configured cap
+    protected ClosedSet newClosedSet(int parts) {
+        if (closedSetLimit <= 0) {
+            return new VisitedSet(verifyHashCollisions);
+        }
+        return new TranspositionTable(Math.max(closedSetLimit / parts, 1), closedSetPolicy, verifyHashCollisions);
+    }
+
+    // Drops successors that can no longer reach the target at all
+    public void setPruneDeadStates(boolean pruneDeadStates) {
+        this.pruneDeadStates = pruneDeadStates;
+    }
+
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setTrace(Trace trace) {
+        this.trace = trace;
+    }
+
+    protected boolean isGoal(GameState state) {
+        return state.getPlayerX() == targetX && state.getPlayerY() == targetY;
+    }
+
+    protected boolean isDead(GameState state) {
+        if (heuristic(state) >= HeuristicTable.UNREACHABLE) {
+            // Walled off from the target from the start, no flood fill needed
+            return true;
+        }
+        return pruneDeadStates && !isGoal(state) && !board.canReachTarget(state.getWalls(), state.getPosition());
+    }
+
+    protected int heuristic(GameState state) {
+        return costToTarget.get(state.getPosition());
+    }
+
+    // The state with its f-value filled in, for initial states built outside a solver
+    protected GameState withEstimate(GameState state) {
+        return new GameState(board, state.getPosition(), state.getWalls(), state.getHash(),
+                (GameState) state.getParent(), state.getDirection(), state.getTotalCost(),
+                state.getTotalCost() + heuristic(state));
+    }
+
+    /*
+     * One slide: the end cell is found with a word-wise scan of the wall mask,
+     * the cost comes from the elevation prefix sums and the hash change from
+     * the board's prefix XORs, so none of them walk the slide cell by cell.
+     */
+    protected GameState simulateMove(GameState currentState, int direction) {
+        int start = currentState.getPosition();
+        int end = board.slideEnd(currentState.getWalls(), start, direction);
+        if (end == start) {
+            return null;
+        }
+        return simulateMove(currentState, direction, end);
+    }
+
+    // The same slide when its end cell is already known
+    protected GameState simulateMove(GameState currentState, int direction, int end) {
+        int start = currentState.getPosition();
+        int endX = board.xOf(end), endY = board.yOf(end);
+        int slideCost = slideCost(start, direction, end);
+        int totalCost = currentState.getTotalCost() + slideCost;
+        if (trace.isEnabled(Trace.SLIDES)) {
+            trace.printf(Trace.SLIDES, "Sliding to (%d,%d), cost: %d%n", endX, endY, slideCost);
+        }
+
+        // The cells we leave (the start cell included) turn into walls
+        long[] walls = currentState.getWalls().clone();
+        long hash = currentState.getHash() ^ board.playerKey(start) ^ board.playerKey(end);
+        hash ^= board.wallSegment(walls, start, end);
+
+        return new GameState(board, end, walls, hash, currentState, (byte) direction, totalCost,
+                totalCost + costToTarget.get(end));
+    }
+
+    // Movement cost of the cells a slide enters, the end cell included
+    protected int slideCost(int start, int direction, int end) {
+        return elevation.getSegmentCost(board.xOf(start) + DIR_X[direction], board.yOf(start) + DIR_Y[direction],
+                board.xOf(end), board.yOf(end));
+    }
+}
@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load generator for SolverServer: sends the given levels round robin from a
+ * number of concurrent callers and reports the latency they saw, by response
+ * status, next to the server's own statistics.
+ */
+class SolverClient {
+    private final int port;
+    private final HttpClient client;
+
+    public SolverClient(int port) {
+        this.port = port;
+        this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    // One request; returns the status code and the response body
+    public HttpResponse<String> solve(String level, String query) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/solve?" + query))
+                .POST(HttpRequest.BodyPublishers.ofString(level))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    public String statistics() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/stats")).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    // Each level is sent with the elevation a local run gives it: with a seed, level n gets
+    // PathBlocker.levelSeed(seed, n), otherwise the seed and pyramid count the level stores. Levels that
+    // store their heights are left out, a request cannot carry them.
+    public void run(Iterator<ChartMap> maps, int firstLevel, Long seed, int requests, int concurrency, String query)
+            throws InterruptedException {
+        ArrayList<String> levels = new ArrayList<>();
+        ArrayList<String> queries = new ArrayList<>();
+        for (int level = firstLevel; maps.hasNext(); level++) {
+            ChartMap map = maps.next();
+            if (seed != null) {
+                queries.add(query + "&seed=" + PathBlocker.levelSeed(seed, level));
+            } else if (map.getElevation() != null) {
+                System.out.println("Level " + level + " stores its heights, which the server cannot take; not sent");
+                continue;
+            } else if (map.hasElevationSeed()) {
+                queries.add(query + "&seed=" + map.getElevationSeed() + "&pyramids=" + map.getPyramidCount());
+            } else {
+                queries.add(query);
+            }
+            levels.add(toText(map));
+        }
+        if (levels.isEmpty()) {
+            System.out.println("No levels to send");
+            return;
+        }
+
+        TreeMap<Integer, LatencyHistogram> byStatus = new TreeMap<>();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(Math.max(concurrency, 1));
+        long start = System.nanoTime();
+        for (int c = 0; c < Math.max(concurrency, 1); c++) {
+            callers.execute(() -> {
+                for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = solve(levels.get(i % levels.size()), queries.get(i % levels.size())).statusCode();
+                    } catch (IOException e) {
+                        status = 0;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    LatencyHistogram histogram;
+                    synchronized (byStatus) {
+                        histogram = byStatus.computeIfAbsent(status, s -> new LatencyHistogram());
+                    }
+                    histogram.record(System.nanoTime() - sent);
+                }
+            });
+        }
+        callers.shutdown();
+        callers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d requests from %d callers in %.2f s (%.1f/s)%n", requests, concurrency, seconds,
+                requests / seconds);
+        byStatus.forEach((status, histogram) ->
+                System.out.println((status == 0 ? "failed" : "status " + status) + ": " + histogram));
+        try {
+            System.out.print("Server:\n" + statistics());
+        } catch (IOException e) {
+            System.out.println("Server statistics unavailable: " + e.getMessage());
+        }
+    }
+
+    private static String toText(ChartMap map) {
+        StringBuilder text = new StringBuilder();
+        for (ArrayList<Integer> row : map.getValues()) {
+            for (int i = 0; i < row.size(); i++) {
+                text.append(i > 0 ? " " : "").append(row.get(i));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
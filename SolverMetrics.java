@@ -0,0 +1,157 @@
+/**
+ * Counters and phase timings for one level. Solvers bump the counters from
+ * their own thread (parallel workers each keep a private instance and merge
+ * it at the end), so nothing here is synchronized.
+ *
+ * Every phase is also recorded as a SearchPhaseEvent, which costs next to
+ * nothing unless a JFR recording is running.
+ */
+class SolverMetrics {
+    enum Phase {
+        SETUP, ELEVATION, SEARCH, RENDER
+    }
+
+    private final String level;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private Phase currentPhase;
+    private long phaseStart;
+    private SearchPhaseEvent phaseEvent;
+
+    long nodesExpanded;
+    long nodesGenerated;
+    long duplicatesPruned;
+    long deadStatesPruned;
+    long peakOpenSize;
+    long peakVisitedSize;
+    long closedLookups;
+    long closedHits;
+    long closedEvictions;
+
+    public SolverMetrics(String level) {
+        this.level = level;
+    }
+
+    public void beginPhase(Phase phase) {
+        endPhase();
+        currentPhase = phase;
+        phaseEvent = new SearchPhaseEvent(level, phase.name());
+        phaseEvent.begin();
+        phaseStart = System.nanoTime();
+    }
+
+    public void endPhase() {
+        if (currentPhase == null) {
+            return;
+        }
+        phaseNanos[currentPhase.ordinal()] += System.nanoTime() - phaseStart;
+        phaseEvent.commit();
+        currentPhase = null;
+        phaseEvent = null;
+    }
+
+    public void expanded() {
+        nodesExpanded++;
+    }
+
+    public void generated() {
+        nodesGenerated++;
+    }
+
+    public void duplicate() {
+        duplicatesPruned++;
+    }
+
+    public void deadState() {
+        deadStatesPruned++;
+    }
+
+    public void openSize(int size) {
+        if (size > peakOpenSize) {
+            peakOpenSize = size;
+        }
+    }
+
+    public void visitedSize(int size) {
+        if (size > peakVisitedSize) {
+            peakVisitedSize = size;
+        }
+    }
+
+    // Adds the lookup, hit and eviction counts of a closed set
+    public void closedSet(ClosedSet closed) {
+        closedLookups += closed.getLookups();
+        closedHits += closed.getHits();
+        closedEvictions += closed.getEvictions();
+    }
+
+    // Adds a worker's counters; peaks are summed, which bounds the combined peak from above
+    public void merge(SolverMetrics other) {
+        nodesExpanded += other.nodesExpanded;
+        nodesGenerated += other.nodesGenerated;
+        duplicatesPruned += other.duplicatesPruned;
+        deadStatesPruned += other.deadStatesPruned;
+        peakOpenSize += other.peakOpenSize;
+        peakVisitedSize += other.peakVisitedSize;
+        closedLookups += other.closedLookups;
+        closedHits += other.closedHits;
+        closedEvictions += other.closedEvictions;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public long getNodesGenerated() {
+        return nodesGenerated;
+    }
+
+    public long getDuplicatesPruned() {
+        return duplicatesPruned;
+    }
+
+    public long getDeadStatesPruned() {
+        return deadStatesPruned;
+    }
+
+    public long getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    public long getPeakVisitedSize() {
+        return peakVisitedSize;
+    }
+
+    public long getClosedSetEvictions() {
+        return closedEvictions;
+    }
+
+    public double getClosedSetHitRate() {
+        return closedLookups > 0 ? (double) closedHits / closedLookups : 0.0;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public double getNodesPerSecond() {
+        long nanos = getPhaseNanos(Phase.SEARCH);
+        return nanos > 0 ? nodesExpanded * 1e9 / nanos : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Search: %d expanded, %d generated, %d duplicates pruned, %d dead states pruned, peak open %d, "
+                        + "peak visited %d, %.0f nodes/s%n"
+                        + "Closed set: %d lookups, %.1f%% hits, %d evictions%n"
+                        + "Time: setup %.1f ms, elevation %.1f ms, search %.1f ms, render %.1f ms",
+                nodesExpanded, nodesGenerated, duplicatesPruned, deadStatesPruned, peakOpenSize, peakVisitedSize, getNodesPerSecond(),
+                closedLookups, getClosedSetHitRate() * 100, closedEvictions,
+                getPhaseNanos(Phase.SETUP) / 1e6, getPhaseNanos(Phase.ELEVATION) / 1e6,
+                getPhaseNanos(Phase.SEARCH) / 1e6, getPhaseNanos(Phase.RENDER) / 1e6);
+    }
+}
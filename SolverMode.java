@@ -0,0 +1,21 @@
+// Search engine used for a level
+enum SolverMode {
+    ASTAR,
+    IDASTAR,
+    // A* with its nodes in off-heap buffers, for searches too large for the heap
+    ARENA,
+    // Weighted A* that keeps improving its solution until the budget runs out
+    ANYTIME,
+    // A* unless the map is too large to keep every state in memory, then IDA*
+    AUTO;
+
+    // Above this many cells AUTO switches to IDA*
+    static final int AUTO_IDASTAR_CELLS = 40 * 40;
+
+    SolverMode resolve(Board board) {
+        if (this != AUTO) {
+            return this;
+        }
+        return board.getWidth() * board.getHeight() > AUTO_IDASTAR_CELLS ? IDASTAR : ASTAR;
+    }
+}
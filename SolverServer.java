@@ -0,0 +1,306 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solves levels sent over HTTP on localhost, for callers that want a solution
+ * without starting a JVM per level.
+ *
+ *   POST /solve?seed=N&pyramids=N&solver=astar|idastar|arena|anytime|auto&timeout=MS
+ *   body: one level in the level file format
+ *
+ * The answer is plain text, one "key value" per line: cost (-1 if no
+ * solution was found), moves, optimal, expanded and millis. Nothing is rendered.
+ * With solver=anytime the search stops shortly before the timeout and
+ * answers with its best solution, which may not be optimal, or with 504 if
+ * it has not found one by then.
+ *
+ * Solves run on a fixed pool of workers behind a bounded queue. The HTTP
+ * dispatcher thread only looks at a request's line and query and hands it
+ * to that queue; the worker reads the body, solves it and sends the answer,
+ * so the dispatcher never waits on a caller or a solve and nothing queues
+ * up in front of the admission check. A request that finds the queue full
+ * is turned away at once with 503 instead of waiting behind work it cannot
+ * overtake. One that is not answered within its timeout, counted from its
+ * arrival and including time in the queue and reading its body, is
+ * cancelled and gets 504; a body still unread then is not waited for, the
+ * connection is closed. GET /stats reports the counters and the latency
+ * percentiles of answered requests.
+ */
+class SolverServer {
+    private final HttpServer server;
+    private final ThreadPoolExecutor solvers;
+    private final ScheduledThreadPoolExecutor timer;
+    private final long defaultTimeoutMillis;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong unsolvable = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong badRequests = new AtomicLong();
+
+    static {
+        // Answering a request closes its body, and the JDK server then reads what is left of it. A caller that
+        // stalls its body would hold the dispatcher (503) or the timer (504) there. Without that draining the
+        // connection is closed after the answer instead, which also frees a worker blocked reading the body.
+        if (System.getProperty("sun.net.httpserver.drainAmount") == null) {
+            System.setProperty("sun.net.httpserver.drainAmount", "0");
+        }
+    }
+
+    public SolverServer(int port, int workers, int queueLimit, long defaultTimeoutMillis) throws IOException {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.solvers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueLimit, 1)), new ThreadPoolExecutor.AbortPolicy());
+        // Answers 504 for requests that run out of time, queued or running
+        this.timer = new ScheduledThreadPoolExecutor(1);
+        timer.setRemoveOnCancelPolicy(true);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 64);
+        // No executor: handlers run on the dispatcher thread, which only admits requests and never blocks on one
+        server.setExecutor(null);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        solvers.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    // Runs on the server's dispatcher thread and reads nothing from the caller, so a slow body cannot hold up
+    // the others; a request beyond the queue is turned away as soon as it arrives, and its time is measured
+    // from there
+    private void handleSolve(HttpExchange exchange) {
+        long start = System.nanoTime();
+        if (!exchange.getRequestMethod().equals("POST")) {
+            answer(exchange, 405, "Use POST with the level in the body\n");
+            return;
+        }
+        HashMap<String, String> params = queryParameters(exchange.getRequestURI());
+        Solve solve;
+        try {
+            solve = new Solve(exchange, start,
+                    Integer.parseInt(params.getOrDefault("pyramids", Integer.toString(PathBlocker.PYRAMIDS))),
+                    Long.parseLong(params.getOrDefault("seed", "0")),
+                    SolverMode.valueOf(params.getOrDefault("solver", "auto").toUpperCase()),
+                    Long.parseLong(params.getOrDefault("timeout", Long.toString(defaultTimeoutMillis))));
+        } catch (RuntimeException e) {
+            badRequests.incrementAndGet();
+            answer(exchange, 400, "Bad request: " + e.getMessage() + "\n");
+            return;
+        }
+
+        try {
+            solve.future = solvers.submit(solve::run);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            answer(exchange, 503, "Queue full, try again later\n");
+            return;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(solve.timeoutMillis) - (System.nanoTime() - start);
+        timer.schedule(solve::timeOut, Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * One admitted request. Exactly one of the worker (with the result) and
+     * the timer (with 504) answers it, whichever claims it first.
+     */
+    private final class Solve {
+        final HttpExchange exchange;
+        final long start;
+        final int pyramids;
+        final long seed;
+        final SolverMode mode;
+        final long timeoutMillis;
+        final AtomicBoolean answered = new AtomicBoolean();
+        volatile Future<?> future;
+        volatile Solver solver;
+
+        Solve(HttpExchange exchange, long start, int pyramids, long seed, SolverMode mode,
+                long timeoutMillis) {
+            this.exchange = exchange;
+            this.start = start;
+            this.pyramids = pyramids;
+            this.seed = seed;
+            this.mode = mode;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        // On a worker; a body that is slow to arrive holds up this worker only, until the timer answers 504
+        void run() {
+            GameState initialState;
+            try {
+                LevelGrid grid;
+                try (LevelReader reader = new LevelReader(Channels.newChannel(exchange.getRequestBody()), "request")) {
+                    if (!reader.hasNext()) {
+                        throw new IllegalArgumentException("No level in the request");
+                    }
+                    grid = reader.next();
+                }
+                ArrayList<ArrayList<Integer>> values = grid.toValues();
+                Board board = new Board(values);
+                if (board.getTargetX() < 0) {
+                    throw new IllegalArgumentException("Level has no target");
+                }
+                Elevation elevation = new Elevation(values.size(), pyramids, seed, null);
+                SolverMode resolved = mode.resolve(board);
+                if (resolved == SolverMode.IDASTAR) {
+                    solver = new IdaStarSolver(board, elevation);
+                } else if (resolved == SolverMode.ANYTIME) {
+                    AnytimeSolver anytime = new AnytimeSolver(board, elevation);
+                    // Stop improving in time to answer with the best solution so far
+                    long left = TimeUnit.MILLISECONDS.toNanos(timeoutMillis) - (System.nanoTime() - start);
+                    anytime.setDeadline(Math.max(TimeUnit.NANOSECONDS.toMillis(left) * 9 / 10, 1));
+                    solver = anytime;
+                } else if (resolved == SolverMode.ARENA) {
+                    solver = new ArenaAStarSolver(board, elevation);
+                } else {
+                    solver = new AStarSolver(board, elevation);
+                }
+                initialState = new GameState(board, playerIndex(grid, board), board.copyInitialWalls());
+            } catch (RuntimeException e) {
+                if (answered.compareAndSet(false, true)) {
+                    badRequests.incrementAndGet();
+                    answer(exchange, 400, "Bad request: " + e.getMessage() + "\n");
+                }
+                return;
+            }
+            if (answered.get()) {
+                // Timed out while it was being set up
+                return;
+            }
+
+            GameState goal;
+            try {
+                goal = solver.solve(initialState);
+            } catch (RuntimeException | OutOfMemoryError e) {
+                if (answered.compareAndSet(false, true)) {
+                    answer(exchange, 500, "Solver failed: " + e + "\n");
+                }
+                return;
+            }
+            if (!answered.compareAndSet(false, true)) {
+                return;
+            }
+            if (goal == null && solver.isExhausted()) {
+                // The anytime deadline, taken from the timeout, ran out before a first solution
+                timeouts.incrementAndGet();
+                answer(exchange, 504, "No solution within " + timeoutMillis + " ms\n");
+                return;
+            }
+
+            long elapsed = System.nanoTime() - start;
+            StringBuilder body = new StringBuilder();
+            if (goal != null) {
+                solved.incrementAndGet();
+                body.append("cost ").append(goal.getTotalCost()).append('\n');
+                body.append("moves ").append(String.join("", goal.getMoves())).append('\n');
+                body.append("optimal ").append(solver.isSolutionOptimal()).append('\n');
+            } else {
+                unsolvable.incrementAndGet();
+                body.append("cost -1\n");
+                body.append("moves \n");
+            }
+            body.append("expanded ").append(solver.getMetrics().getNodesExpanded()).append('\n');
+            body.append("millis ").append(TimeUnit.NANOSECONDS.toMillis(elapsed)).append('\n');
+            latency.record(elapsed);
+            answer(exchange, 200, body.toString());
+        }
+
+        // On the timer
+        void timeOut() {
+            if (!answered.compareAndSet(false, true)) {
+                return;
+            }
+            // Stops the search if it is running, and frees its queue slot if it never started
+            Solver running = solver;
+            if (running != null) {
+                running.cancel();
+            }
+            future.cancel(false);
+            solvers.remove((Runnable) future);
+            timeouts.incrementAndGet();
+            answer(exchange, 504, "Timed out after " + timeoutMillis + " ms\n");
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) {
+        answer(exchange, 200, statistics());
+    }
+
+    public String statistics() {
+        return "solved " + solved.get() + "\n"
+                + "unsolvable " + unsolvable.get() + "\n"
+                + "timeouts " + timeouts.get() + "\n"
+                + "rejected " + rejected.get() + "\n"
+                + "bad " + badRequests.get() + "\n"
+                + "queued " + solvers.getQueue().size() + "\n"
+                + "running " + solvers.getActiveCount() + "\n"
+                + "latency " + latency + "\n";
+    }
+
+    private static int playerIndex(LevelGrid grid, Board board) {
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                if (grid.get(x, y) == 3) { // 3 -> player
+                    return board.index(x, y);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Level has no player");
+    }
+
+    private static HashMap<String, String> queryParameters(URI uri) {
+        HashMap<String, String> params = new HashMap<>();
+        String query = uri.getQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                params.put(pair.substring(0, equals), pair.substring(equals + 1));
+            }
+        }
+        return params;
+    }
+
+    // Sends the whole answer and closes the exchange; a caller that went away is not an error here
+    private static void answer(HttpExchange exchange, int status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+                response.write(bytes);
+            }
+        } catch (IOException e) {
+            // Nothing left to tell the caller
+        }
+    }
+}
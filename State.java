@@ -1,34 +1,40 @@
 import java.util.ArrayList;
+import java.util.Collections;
 
 abstract class State {
-    protected int playerX;
-    protected int playerY;
-    protected ArrayList<ArrayList<Integer>> mapValues;
-    protected ArrayList<String> moves;
+    // Move letters, indexed by the direction byte stored in each state
+    public static final String[] DIRECTIONS = { "W", "A", "S", "D" };
+
+    protected final State parent;
+    protected final byte direction;
     protected int totalCost;
 
-    public State(int playerX, int playerY, ArrayList<ArrayList<Integer>> mapValues, ArrayList<String> moves,
-            int totalCost) {
-        this.playerX = playerX;
-        this.playerY = playerY;
-        this.mapValues = mapValues;
-        this.moves = moves;
+    public State(State parent, byte direction, int totalCost) {
+        this.parent = parent;
+        this.direction = direction;
         this.totalCost = totalCost;
     }
 
-    public int getPlayerX() {
-        return playerX;
-    }
+    public abstract int getPlayerX();
+
+    public abstract int getPlayerY();
 
-    public int getPlayerY() {
-        return playerY;
+    public State getParent() {
+        return parent;
     }
 
-    public ArrayList<ArrayList<Integer>> getMapValues() {
-        return mapValues;
+    // Direction of the move that produced this state, -1 for the initial state
+    public byte getDirection() {
+        return direction;
     }
 
+    // Rebuilds the move list by walking the parent chain back to the start
     public ArrayList<String> getMoves() {
+        ArrayList<String> moves = new ArrayList<>();
+        for (State s = this; s.parent != null; s = s.parent) {
+            moves.add(DIRECTIONS[s.direction]);
+        }
+        Collections.reverse(moves);
         return moves;
     }
 
@@ -37,4 +43,4 @@ abstract class State {
     }
 
     public abstract String getUniqueIdentifier();
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+import java.io.PrintStream;
+
+/**
+ * Optional solver trace. Off by default; the verbosity picks what is printed
+ * and at most maxPerSecond lines are written per second, the rest are only
+ * counted, so a trace can be left on during a long search.
+ */
+class Trace {
+    public static final int OFF = 0;
+    public static final int EXPANSIONS = 1;
+    public static final int SLIDES = 2;
+
+    private final PrintStream out;
+    private final int verbosity;
+    private final int maxPerSecond;
+    private long windowStart;
+    private int linesInWindow;
+    private long suppressed;
+
+    public Trace(PrintStream out, int verbosity, int maxPerSecond) {
+        this.out = out;
+        this.verbosity = verbosity;
+        this.maxPerSecond = Math.max(maxPerSecond, 1);
+    }
+
+    public static Trace off() {
+        return new Trace(System.out, OFF, 1);
+    }
+
+    public boolean isEnabled(int level) {
+        return verbosity >= level;
+    }
+
+    public synchronized void printf(int level, String format, Object... args) {
+        if (verbosity < level) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - windowStart >= 1_000_000_000L) {
+            if (suppressed > 0) {
+                out.println("[trace] " + suppressed + " lines suppressed");
+                suppressed = 0;
+            }
+            windowStart = now;
+            linesInWindow = 0;
+        }
+        if (linesInWindow >= maxPerSecond) {
+            suppressed++;
+            return;
+        }
+        linesInWindow++;
+        out.printf(format, args);
+    }
+
+    // Reports lines still held back by the rate limit
+    public synchronized void finish() {
+        if (suppressed > 0) {
+            out.println("[trace] " + suppressed + " lines suppressed");
+            suppressed = 0;
+        }
+    }
+}
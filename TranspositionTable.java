@@ -0,0 +1,192 @@
+/**
+ * Closed set with a hard memory cap. Keys, costs and a small tag per entry
+ * are kept in fixed arrays allocated up front, grouped in buckets of
+ * BUCKET_SIZE slots picked by the state's hash. When a bucket is full a
+ * victim is chosen inside it:
+ *
+ * CLOCK gives every entry a second chance: a lookup that hits an entry marks
+ * it referenced, and the hand of the bucket skips (and clears) referenced
+ * entries before evicting one.
+ *
+ * DEPTH_PREFERRED keeps the states with the highest path cost and evicts the
+ * cheapest one, on the idea that a deep state stands for more search work
+ * than a shallow one that is quickly reached again.
+ *
+ * An evicted state is just forgotten: when the search reaches it again it is
+ * not a duplicate any more, goes back on the open list and is expanded again,
+ * so the result is unchanged and only the work grows.
+ */
+class TranspositionTable extends ClosedSet {
+    enum Policy {
+        CLOCK, DEPTH_PREFERRED
+    }
+
+    private static final int BUCKET_SIZE = 4;
+    // key + cost + tag, and a state reference when verifying
+    private static final int ENTRY_BYTES = 8 + 4 + 1;
+    private static final int VERIFY_ENTRY_BYTES = ENTRY_BYTES + 8;
+    // A GameState kept alive by a verifying entry, and its walls array without the words themselves
+    private static final int STATE_BYTES = 48 + 16;
+    private static final long ZERO_KEY = 0x8000000000000001L;
+
+    private final long[] keys;
+    private final int[] costs;
+    private final boolean[] referenced;
+    private final byte[] hands;
+    private final GameState[] states;
+    private final int bucketMask;
+    private final Policy policy;
+    private final boolean verify;
+    private int size;
+    private long collisions;
+
+    public TranspositionTable(int maxEntries, Policy policy, boolean verify) {
+        int buckets = Integer.highestOneBit(Math.max(maxEntries / BUCKET_SIZE, 1));
+        int capacity = buckets * BUCKET_SIZE;
+        this.keys = new long[capacity];
+        this.costs = new int[capacity];
+        this.referenced = new boolean[capacity];
+        this.hands = new byte[buckets];
+        this.states = verify ? new GameState[capacity] : null;
+        this.bucketMask = buckets - 1;
+        this.policy = policy;
+        this.verify = verify;
+    }
+
+    // Number of entries that fit in the given number of bytes. A verifying entry also keeps its state alive,
+    // which is charged at its estimated size with walls of the given number of words.
+    public static int entriesForBudget(long bytes, boolean verify, int words) {
+        long entries = bytes / (verify ? VERIFY_ENTRY_BYTES + STATE_BYTES + 8L * words : ENTRY_BYTES);
+        return (int) Math.min(entries, 1 << 30);
+    }
+
+    @Override
+    public boolean contains(GameState state) {
+        return find(state) >= 0;
+    }
+
+    @Override
+    public boolean add(GameState state) {
+        if (find(state) >= 0) {
+            return false;
+        }
+        insert(key(state), state.getTotalCost(), state);
+        return true;
+    }
+
+    @Override
+    public boolean addIfCheaper(GameState state) {
+        int slot = find(state);
+        if (slot < 0) {
+            insert(key(state), state.getTotalCost(), state);
+            return true;
+        }
+        if (state.getTotalCost() < costs[slot]) {
+            costs[slot] = state.getTotalCost();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsNoWorse(GameState state) {
+        int slot = find(state);
+        return slot >= 0 && costs[slot] <= state.getTotalCost();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Entries entries() {
+        return new Entries(keys.clone(), costs.clone(), verify ? states.clone() : null);
+    }
+
+    @Override
+    public void restore(long key, int cost, GameState state) {
+        insert(key, cost, state);
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long getCollisions() {
+        return collisions;
+    }
+
+    private int find(GameState state) {
+        long key = key(state);
+        int base = bucketOf(key) * BUCKET_SIZE;
+        lookups++;
+        for (int i = base; i < base + BUCKET_SIZE; i++) {
+            if (keys[i] != key) {
+                continue;
+            }
+            if (verify && !states[i].sameState(state)) {
+                collisions++;
+                continue;
+            }
+            hits++;
+            referenced[i] = true;
+            return i;
+        }
+        return -1;
+    }
+
+    private void insert(long key, int cost, GameState state) {
+        int bucket = bucketOf(key);
+        int base = bucket * BUCKET_SIZE;
+        int slot = -1;
+        for (int i = base; i < base + BUCKET_SIZE; i++) {
+            if (keys[i] == 0) {
+                slot = i;
+                break;
+            }
+        }
+        if (slot < 0) {
+            slot = policy == Policy.CLOCK ? clockVictim(bucket) : cheapestVictim(base);
+            evictions++;
+            size--;
+        }
+        keys[slot] = key;
+        costs[slot] = cost;
+        referenced[slot] = false;
+        if (verify) {
+            states[slot] = state;
+        }
+        size++;
+    }
+
+    private int clockVictim(int bucket) {
+        int base = bucket * BUCKET_SIZE;
+        int hand = hands[bucket];
+        while (referenced[base + hand]) {
+            referenced[base + hand] = false;
+            hand = (hand + 1) % BUCKET_SIZE;
+        }
+        hands[bucket] = (byte) ((hand + 1) % BUCKET_SIZE);
+        return base + hand;
+    }
+
+    private int cheapestVictim(int base) {
+        int victim = base;
+        for (int i = base + 1; i < base + BUCKET_SIZE; i++) {
+            if (costs[i] < costs[victim]) {
+                victim = i;
+            }
+        }
+        return victim;
+    }
+
+    private int bucketOf(long key) {
+        return (int) (key ^ (key >>> 32)) & bucketMask;
+    }
+
+    private static long key(GameState state) {
+        long h = state.getHash();
+        return h == 0 ? ZERO_KEY : h;
+    }
+}
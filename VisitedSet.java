@@ -0,0 +1,167 @@
+/**
+ * Closed set keyed by the 64-bit Zobrist hash of a state. Keys are kept in a
+ * primitive long[] with linear probing, so adding or looking up a state does
+ * not allocate.
+ *
+ * With verification on, the states themselves are kept next to the keys and
+ * a key match only counts as a duplicate if the full state matches too; a
+ * mismatch is a hash collision and probing simply continues.
+ *
+ * The best path cost seen for each state is stored as well, for searches
+ * that may reach a closed state again on a cheaper path and must re-open it.
+ */
+class VisitedSet extends ClosedSet {
+    // 0 marks an empty slot, so a real key of 0 is stored as this instead
+    private static final long ZERO_KEY = 0x8000000000000001L;
+
+    private long[] keys;
+    private int[] costs;
+    private GameState[] states;
+    private int mask;
+    private int size;
+    private long collisions;
+    private final boolean verify;
+
+    public VisitedSet() {
+        this(false);
+    }
+
+    public VisitedSet(boolean verify) {
+        this(1 << 12, verify);
+    }
+
+    public VisitedSet(int initialCapacity, boolean verify) {
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 16) - 1) << 1;
+        this.keys = new long[capacity];
+        this.costs = new int[capacity];
+        this.states = verify ? new GameState[capacity] : null;
+        this.mask = capacity - 1;
+        this.verify = verify;
+    }
+
+    @Override
+    public boolean contains(GameState state) {
+        return find(state) >= 0;
+    }
+
+    @Override
+    public boolean add(GameState state) {
+        int slot = find(state);
+        if (slot >= 0) {
+            return false;
+        }
+        insert(-slot - 1, key(state), state.getTotalCost(), state);
+        return true;
+    }
+
+    @Override
+    public boolean addIfCheaper(GameState state) {
+        int slot = find(state);
+        if (slot < 0) {
+            insert(-slot - 1, key(state), state.getTotalCost(), state);
+            return true;
+        }
+        if (state.getTotalCost() < costs[slot]) {
+            costs[slot] = state.getTotalCost();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsNoWorse(GameState state) {
+        int slot = find(state);
+        return slot >= 0 && costs[slot] <= state.getTotalCost();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Entries entries() {
+        return new Entries(keys.clone(), costs.clone(), verify ? states.clone() : null);
+    }
+
+    @Override
+    public void restore(long key, int cost, GameState state) {
+        // Entries of a set are distinct, so the first free slot is the one
+        int slot = slotOf(key);
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, key, cost, state);
+    }
+
+    public long getCollisions() {
+        return collisions;
+    }
+
+    // Slot of the state if present, otherwise -(free slot) - 1
+    private int find(GameState state) {
+        long key = key(state);
+        int slot = slotOf(key);
+        lookups++;
+        while (true) {
+            long k = keys[slot];
+            if (k == 0) {
+                return -slot - 1;
+            }
+            if (k == key) {
+                if (!verify || states[slot].sameState(state)) {
+                    hits++;
+                    return slot;
+                }
+                collisions++;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insert(int slot, long key, int cost, GameState state) {
+        keys[slot] = key;
+        costs[slot] = cost;
+        if (verify) {
+            states[slot] = state;
+        }
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCosts = costs;
+        GameState[] oldStates = states;
+        keys = new long[oldKeys.length << 1];
+        costs = new int[keys.length];
+        states = verify ? new GameState[keys.length] : null;
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k == 0) {
+                continue;
+            }
+            int slot = slotOf(k);
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = k;
+            costs[slot] = oldCosts[i];
+            if (verify) {
+                states[slot] = oldStates[i];
+            }
+        }
+    }
+
+    private int slotOf(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private static long key(GameState state) {
+        long h = state.getHash();
+        return h == 0 ? ZERO_KEY : h;
+    }
+}
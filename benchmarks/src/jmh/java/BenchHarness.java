@@ -0,0 +1,176 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+import pathblocker.bench.Harness;
+
+// Default-package side of the benchmarks, see pathblocker.bench.Harness
+public class BenchHarness implements Harness {
+    private static final PrintStream NULL_OUT = new PrintStream(OutputStream.nullOutputStream());
+
+    private ChartMap map;
+    private long seed;
+    private String outputDir;
+    private Elevation elevation;
+    private AStarSolver solver;
+    private GameState initialState;
+    private Board generatedBoard;
+    private Elevation generatedElevation;
+    private int generatedPlayer;
+    private BucketQueue bucketQueue;
+    private PriorityQueue<GameState> heap;
+    private SplittableRandom random;
+    private Board openListBoard;
+    private GameState openListStart;
+
+    @Override
+    public void load(String levelPath, long seed, String outputDir) {
+        this.map = ChartMap.readMaps(new String[] { levelPath }).get(0);
+        this.seed = seed;
+        this.outputDir = outputDir;
+        this.elevation = new Elevation(map.getValues().size(), 5, seed, NULL_OUT);
+        this.map.setElevation(elevation);
+
+        Board board = new Board(map.getValues());
+        this.solver = new AStarSolver(board, elevation);
+        ArrayList<ArrayList<Integer>> values = map.getValues();
+        for (int y = 0; y < values.size(); y++) {
+            for (int x = 0; x < values.get(y).size(); x++) {
+                if (values.get(y).get(x) == 3) {
+                    initialState = new GameState(board, board.index(x, y), board.copyInitialWalls());
+                }
+            }
+        }
+    }
+
+    @Override
+    public int play() {
+        // PathBlocker changes the map it is given, so every run starts from a fresh copy
+        Elevation levelElevation = new Elevation(map.getValues().size(), 5, seed, NULL_OUT);
+        PathBlocker game = new PathBlocker(map.copy(), outputDir, NULL_OUT, null, levelElevation);
+        game.play();
+        return game.getSolutionCost();
+    }
+
+    @Override
+    public int expandInitialState() {
+        int moves = 0;
+        for (int i = 0; i < State.DIRECTIONS.length; i++) {
+            if (solver.simulateMove(initialState, i) != null) {
+                moves++;
+            }
+        }
+        return moves;
+    }
+
+    @Override
+    public String uniqueIdentifier() {
+        return initialState.getUniqueIdentifier();
+    }
+
+    @Override
+    public int readMaps(String[] paths) {
+        return ChartMap.readMaps(paths).size();
+    }
+
+    @Override
+    public long streamLevels(String[] paths) {
+        long cells = 0;
+        try (LevelReader reader = new LevelReader(paths)) {
+            while (reader.hasNext()) {
+                LevelGrid level = reader.next();
+                cells += (long) level.getWidth() * level.getHeight();
+            }
+        }
+        return cells;
+    }
+
+    @Override
+    public void saveAsPng(String fileName) {
+        map.saveAsPng(fileName);
+    }
+
+    @Override
+    public int renderFrame() {
+        ArrayList<Integer> row = map.getValues().get(0);
+        row.set(0, row.get(0) == 0 ? 1 : 0);
+        return FrameRenderer.forThisThread().render(map).getRGB(0, 0);
+    }
+
+    @Override
+    public int generatePyramids(int size, int pyramidCount, long seed) {
+        return new Scene(size, pyramidCount, seed).getElevation(size / 2, size / 2);
+    }
+
+    @Override
+    public int generateElevation(int size, int pyramidCount, long seed) {
+        return LevelGenerator.elevation(size, pyramidCount, seed).getHeight(size / 2, size / 2);
+    }
+
+    @Override
+    public void loadGenerated(int size, double wallDensity, long seed) {
+        LevelGrid grid = LevelGenerator.layout(size, size, 4 * size, wallDensity, seed);
+        generatedBoard = new Board(grid.toValues());
+        generatedElevation = LevelGenerator.elevation(size, LevelGenerator.pyramidsFor(size), seed);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (grid.get(x, y) == 3) {
+                    generatedPlayer = generatedBoard.index(x, y);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void loadOpenList(int size, boolean buckets, long seed) {
+        random = new SplittableRandom(seed);
+        openListBoard = new Board(LevelGenerator.layout(8, 8, 4, 0.0, seed).toValues());
+        openListStart = new GameState(openListBoard, 0, openListBoard.copyInitialWalls());
+        if (buckets) {
+            bucketQueue = new BucketQueue();
+            heap = null;
+        } else {
+            // The comparator A* used before the bucket queue, with the same tie-break on g
+            heap = new PriorityQueue<>((a, b) -> a.getEstimatedCost() != b.getEstimatedCost()
+                    ? Integer.compare(a.getEstimatedCost(), b.getEstimatedCost())
+                    : Integer.compare(b.getTotalCost(), a.getTotalCost()));
+            bucketQueue = null;
+        }
+        for (int i = 0; i < size; i++) {
+            int g = random.nextInt(1000);
+            addToOpenList(openListState(g, g + random.nextInt(200)));
+        }
+    }
+
+    @Override
+    public int openListHold() {
+        GameState best = bucketQueue != null ? bucketQueue.poll() : heap.poll();
+        // A slide costs at least its length, and the heuristic drops by at most as much
+        int g = best.getTotalCost() + 1 + random.nextInt(10);
+        int f = best.getEstimatedCost() + random.nextInt(4);
+        addToOpenList(openListState(g, Math.max(f, g)));
+        return f;
+    }
+
+    private void addToOpenList(GameState state) {
+        if (bucketQueue != null) {
+            bucketQueue.add(state);
+        } else {
+            heap.add(state);
+        }
+    }
+
+    private GameState openListState(int g, int f) {
+        return new GameState(openListBoard, openListStart.getPosition(), openListStart.getWalls(),
+                openListStart.getHash(), null, (byte) 0, g, f);
+    }
+
+    @Override
+    public int solveGenerated() {
+        GameState start = new GameState(generatedBoard, generatedPlayer, generatedBoard.copyInitialWalls());
+        GameState goal = new AStarSolver(generatedBoard, generatedElevation).solve(start);
+        return goal == null ? -1 : goal.getTotalCost();
+    }
+}
@@ -0,0 +1,62 @@
+package pathblocker.bench;
+
+/**
+ * What the benchmarks need from the game. The game classes are in the default
+ * package, which a named package cannot import, and JMH does not accept
+ * benchmarks in the default package. So the default-package BenchHarness
+ * implements this interface and the benchmarks only see the interface.
+ */
+public interface Harness {
+
+    // Loads one level file and prepares a seeded elevation and an initial search state
+    void load(String levelPath, long seed, String outputDir);
+
+    // Full PathBlocker run on the loaded level: search, replay and PNG frames; returns the cost
+    int play();
+
+    // Tries all four moves from the initial state; returns how many are possible
+    int expandInitialState();
+
+    String uniqueIdentifier();
+
+    // Returns the number of maps read
+    int readMaps(String[] paths);
+
+    // Streams the levels without keeping them; returns the total number of cells
+    long streamLevels(String[] paths);
+
+    void saveAsPng(String fileName);
+
+    // Flips one cell of the loaded map and renders it without encoding; returns one pixel to consume
+    int renderFrame();
+
+    // Builds a seeded scene, which runs generatePyramids; returns one height to consume
+    int generatePyramids(int size, int pyramidCount, long seed);
+
+    // Builds a size x size elevation field with LevelGenerator; returns one height to consume
+    int generateElevation(int size, int pyramidCount, long seed);
+
+    // Generates a solvable size x size level with elevation, to be solved by solveGenerated()
+    void loadGenerated(int size, double wallDensity, long seed);
+
+    // A* on the generated level; returns the cost
+    int solveGenerated();
+
+    // Fills an open list, the bucket queue or a binary heap, with size states for openListHold()
+    void loadOpenList(int size, boolean buckets, long seed);
+
+    // Polls the best state and adds a successor with an f no lower than its own; returns that f
+    int openListHold();
+
+    static Harness create() {
+        try {
+            return (Harness) Class.forName("BenchHarness").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchHarness is not on the classpath", e);
+        }
+    }
+
+    static String levelPath(String level) {
+        return System.getProperty("pathblocker.levels", ".") + "/" + level;
+    }
+}
@@ -0,0 +1,57 @@
+package pathblocker.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Reading the level pack and rendering one frame
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IoBenchmark {
+    private Harness harness;
+    private String[] paths;
+    private String pngFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        harness = Harness.create();
+        harness.load(Harness.levelPath("level1.txt"), 42, System.getProperty("java.io.tmpdir"));
+        paths = new String[10];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = Harness.levelPath("level" + (i + 1) + ".txt");
+        }
+        File png = File.createTempFile("pathblocker-bench", ".png");
+        png.deleteOnExit();
+        pngFile = png.getPath();
+    }
+
+    @Benchmark
+    public int readMaps() {
+        return harness.readMaps(paths);
+    }
+
+    @Benchmark
+    public long streamLevels() {
+        return harness.streamLevels(paths);
+    }
+
+    // One dirty cell, the usual case along a replay
+    @Benchmark
+    public int renderFrame() {
+        return harness.renderFrame();
+    }
+
+    @Benchmark
+    public void saveAsPng() {
+        harness.saveAsPng(pngFile);
+    }
+}
@@ -0,0 +1,41 @@
+package pathblocker.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// One poll and one add on an open list of a steady size, bucket queue against binary heap
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OpenListBenchmark {
+
+    @Param({ "1000", "1000000" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean buckets;
+
+    @Param({ "42" })
+    public long seed;
+
+    private Harness harness;
+
+    @Setup
+    public void setUp() {
+        harness = Harness.create();
+        harness.loadOpenList(size, buckets, seed);
+    }
+
+    @Benchmark
+    public int hold() {
+        return harness.openListHold();
+    }
+}
@@ -0,0 +1,40 @@
+package pathblocker.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Scene.generatePyramids for the level size and the largest size Scene allows
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SceneBenchmark {
+
+    @Param({ "14", "60" })
+    public int size;
+
+    @Param({ "5" })
+    public int pyramidCount;
+
+    @Param({ "42" })
+    public long seed;
+
+    private Harness harness;
+
+    @Setup
+    public void setUp() {
+        harness = Harness.create();
+    }
+
+    @Benchmark
+    public int generatePyramids() {
+        return harness.generatePyramids(size, pyramidCount, seed);
+    }
+}
@@ -0,0 +1,43 @@
+package pathblocker.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// The per-node operations of the search, from the initial state of a level
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SearchBenchmark {
+
+    @Param({ "level1.txt", "level5.txt", "level10.txt" })
+    public String level;
+
+    @Param({ "42" })
+    public long seed;
+
+    private Harness harness;
+
+    @Setup
+    public void setUp() {
+        harness = Harness.create();
+        harness.load(Harness.levelPath(level), seed, System.getProperty("java.io.tmpdir"));
+    }
+
+    @Benchmark
+    public int simulateMove() {
+        return harness.expandInitialState();
+    }
+
+    @Benchmark
+    public String uniqueIdentifier() {
+        return harness.uniqueIdentifier();
+    }
+}
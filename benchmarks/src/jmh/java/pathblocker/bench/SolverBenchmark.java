@@ -0,0 +1,42 @@
+package pathblocker.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// PathBlocker.play() end to end: search, replay and PNG frames for one level
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SolverBenchmark {
+
+    @Param({ "level1.txt", "level2.txt", "level3.txt", "level4.txt", "level5.txt",
+            "level6.txt", "level7.txt", "level8.txt", "level9.txt", "level10.txt" })
+    public String level;
+
+    @Param({ "42" })
+    public long seed;
+
+    private Harness harness;
+
+    @Setup
+    public void setUp() throws IOException {
+        harness = Harness.create();
+        String outputDir = Files.createTempDirectory("pathblocker-bench").toString();
+        harness.load(Harness.levelPath(level), seed, outputDir);
+    }
+
+    @Benchmark
+    public int play() {
+        return harness.play();
+    }
+}
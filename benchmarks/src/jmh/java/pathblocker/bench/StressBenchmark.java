@@ -0,0 +1,47 @@
+package pathblocker.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Generated levels larger than the level pack: elevation fields and A* on solvable random layouts
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StressBenchmark {
+
+    @Param({ "32", "64", "128" })
+    public int size;
+
+    @Param({ "0.2" })
+    public double wallDensity;
+
+    @Param({ "42" })
+    public long seed;
+
+    private Harness harness;
+
+    @Setup
+    public void setUp() {
+        harness = Harness.create();
+        harness.loadGenerated(size, wallDensity, seed);
+    }
+
+    @Benchmark
+    public int solveGenerated() {
+        return harness.solveGenerated();
+    }
+
+    // A field of 1000 x 1000 with Scene's density of pyramids
+    @Benchmark
+    public int generateElevation() {
+        return harness.generateElevation(1000, 2500, seed);
+    }
+}